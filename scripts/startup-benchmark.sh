@@ -0,0 +1,90 @@
+#!/usr/bin/env bash
+#
+# 啟動時間與常駐記憶體（RSS）比較：
+#   jvm          一般 fat jar
+#   jvm-aot-cds  Spring AOT + Class Data Sharing（以 spring.context.exit=onRefresh 訓練 CDS archive）
+#   native       GraalVM native-image（需先執行 ./mvnw -Pnative native:compile）
+#
+# 用法：scripts/startup-benchmark.sh [執行次數，預設 5]
+# 目標：native 模式啟動 < 100ms，RSS 明顯低於 JVM 模式。
+#
+set -euo pipefail
+
+RUNS="${1:-5}"
+ROOT="$(cd "$(dirname "$0")/.." && pwd)"
+TARGET="$ROOT/target"
+JAR="$TARGET/keycloak-0.0.1-SNAPSHOT.jar"
+NATIVE="$TARGET/keycloak"
+CDS_DIR="$TARGET/cds"
+LOG="$TARGET/startup-benchmark.log"
+MAIN_CLASS="com.example.keycloak.KeycloakApplication"
+APP_ARGS=(--server.port=0)
+
+# 1. 建置 AOT 處理過的 jar（一般 JVM 啟動時不啟用 AOT，兩種 JVM 模式共用同一個 jar）
+#    既有的 jar 若是一般 `package` 產生（不含 AOT 產生的 __ApplicationContextInitializer），重新以 -Pnative 建置，
+#    並捨棄以舊 jar 訓練的 CDS archive
+has_aot() {
+    [[ -f "$JAR" ]] && jar -tf "$JAR" | grep -q "__ApplicationContextInitializer"
+}
+if ! has_aot; then
+    (cd "$ROOT" && sh ./mvnw -B -q -Pnative -DskipTests clean package) # mvnw 在 repo 中沒有執行權限
+    rm -rf "$CDS_DIR"
+    if ! has_aot; then
+        echo "$JAR 不含 Spring AOT 產生的類別，請確認 -Pnative 建置成功" >&2
+        exit 1
+    fi
+fi
+
+# 2. 解開 jar 並訓練 CDS archive（CDS 只能封存一般 jar 內的類別：不能是巢狀 jar，也不能是目錄）
+CDS_CLASSPATH="$CDS_DIR/application.jar:$CDS_DIR/app/BOOT-INF/lib/*"
+if [[ ! -f "$CDS_DIR/app.jsa" ]]; then
+    rm -rf "$CDS_DIR" && mkdir -p "$CDS_DIR/app"
+    (cd "$CDS_DIR/app" && jar -xf "$JAR")
+    jar -cf "$CDS_DIR/application.jar" -C "$CDS_DIR/app/BOOT-INF/classes" .
+    java -XX:ArchiveClassesAtExit="$CDS_DIR/app.jsa" \
+         -Dspring.aot.enabled=true -Dspring.context.exit=onRefresh \
+         -cp "$CDS_CLASSPATH" "$MAIN_CLASS" "${APP_ARGS[@]}" > /dev/null
+fi
+
+# 啟動一次，等待 "Started ... (process running for X)"，回傳「秒數 RSS(KB)」
+measure() {
+    "$@" "${APP_ARGS[@]}" > "$LOG" 2>&1 &
+    local pid=$!
+    for _ in $(seq 1 600); do
+        if grep -q "Started KeycloakApplication" "$LOG"; then
+            break
+        fi
+        if ! kill -0 "$pid" 2> /dev/null; then
+            echo "啟動失敗，請查看 $LOG" >&2
+            exit 1
+        fi
+        sleep 0.05
+    done
+    local seconds rss
+    seconds="$(grep -o "process running for [0-9.]*" "$LOG" | awk '{print $4}')"
+    rss="$(awk '/VmRSS/ {print $2}' "/proc/$pid/status")"
+    kill "$pid" && wait "$pid" 2> /dev/null || true
+    echo "$seconds $rss"
+}
+
+run_mode() {
+    local name="$1"
+    shift
+    local results=""
+    for _ in $(seq 1 "$RUNS"); do
+        results+="$(measure "$@")"$'\n'
+    done
+    echo -n "$results" | awk -v name="$name" '
+        { t += $1; r += $2; n++ }
+        END { printf "%-12s %10.0f %12.1f\n", name, t / n * 1000, r / n / 1024 }'
+}
+
+printf "%-12s %10s %12s\n" "mode" "start(ms)" "RSS(MB)"
+run_mode "jvm" java -jar "$JAR"
+run_mode "jvm-aot-cds" java -XX:SharedArchiveFile="$CDS_DIR/app.jsa" -Dspring.aot.enabled=true \
+    -cp "$CDS_CLASSPATH" "$MAIN_CLASS"
+if [[ -x "$NATIVE" ]]; then
+    run_mode "native" "$NATIVE"
+else
+    echo "native       (略過：請先執行 ./mvnw -Pnative native:compile)"
+fi
@@ -2,8 +2,10 @@ package com.example.keycloak;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.context.annotation.ImportRuntimeHints;
 
 @SpringBootApplication
+@ImportRuntimeHints(KeycloakRuntimeHints.class) // ✅ native-image 執行期提示
 public class KeycloakApplication {
 
 	public static void main(String[] args) {
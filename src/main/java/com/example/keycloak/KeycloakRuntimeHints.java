@@ -0,0 +1,36 @@
+package com.example.keycloak;
+
+import org.springframework.aot.hint.BindingReflectionHintsRegistrar;
+import org.springframework.aot.hint.MemberCategory;
+import org.springframework.aot.hint.RuntimeHints;
+import org.springframework.aot.hint.RuntimeHintsRegistrar;
+
+import com.example.keycloak.api.Article;
+
+/**
+ * GraalVM native-image 所需的執行期提示（`-Pnative`）。
+ *   - `Article`：Controller 回傳 `ResponseEntity<?>`，AOT 無法推斷型別，需手動註冊 Jackson 綁定
+ *     （Lombok 產生的 getter / setter 為一般方法，一併涵蓋）
+ *   - AWS SDK：同步 HTTP client 由 ServiceLoader 以反射建立；其餘資源（endpoints、預設設定）由 SDK 自帶的
+ *     `META-INF/native-image` metadata 提供
+ *   - JwtAuthConverter：AOT 會產生其 Bean 定義，claims 皆以 Map 讀取，不需額外提示
+ */
+class KeycloakRuntimeHints implements RuntimeHintsRegistrar {
+
+    private final BindingReflectionHintsRegistrar bindingRegistrar = new BindingReflectionHintsRegistrar();
+
+    @Override
+    public void registerHints(RuntimeHints hints, ClassLoader classLoader) {
+        // ✅ Jackson 序列化 / 反序列化 Article
+        bindingRegistrar.registerReflectionHints(hints.reflection(), Article.class);
+
+        // ✅ AWS SDK 透過 ServiceLoader 找到的同步 HTTP client 實作
+        hints.reflection().registerTypeIfPresent(classLoader,
+                "software.amazon.awssdk.http.apache.ApacheSdkHttpService",
+                MemberCategory.INVOKE_PUBLIC_CONSTRUCTORS);
+        hints.reflection().registerTypeIfPresent(classLoader,
+                "software.amazon.awssdk.http.urlconnection.UrlConnectionSdkHttpService",
+                MemberCategory.INVOKE_PUBLIC_CONSTRUCTORS);
+        hints.resources().registerPattern("META-INF/services/software.amazon.awssdk.http.SdkHttpService");
+    }
+}
@@ -1,9 +1,11 @@
 package com.example.keycloak.api;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
 import com.fasterxml.jackson.annotation.JsonProperty;
 import lombok.AllArgsConstructor;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
+import lombok.Setter;
 import lombok.ToString;
 
 @Getter
@@ -23,4 +25,9 @@ public class Article {
 
     @JsonProperty("is_premium") // ✅ 確保 JSON 轉換時鍵名為 "is_premium"
     private boolean isPremium;
+
+    @Setter
+    @JsonProperty("attachment")
+    @JsonInclude(JsonInclude.Include.NON_NULL) // ✅ 尚未上傳附件時不輸出此欄位
+    private String attachment;
 }
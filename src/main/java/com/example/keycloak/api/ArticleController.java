@@ -18,9 +18,9 @@ import java.util.Map;
 @RequestMapping("/api/articles")
 public class ArticleController {
 
-    // ✅ 確保角色名稱與 Keycloak 配置一致
-    private static final String ROLE_PREMIUM = "ROLE_premium_access";
-    private static final String ROLE_BASIC = "ROLE_basic_access";
+    // ✅ 確保角色名稱與 JwtAuthConverter 一致（Keycloak 角色轉為大寫並加上 `ROLE_`）
+    private static final String ROLE_PREMIUM = "ROLE_PREMIUM_ACCESS";
+    private static final String ROLE_BASIC = "ROLE_BASIC_ACCESS";
 
     // 假設有一個檔案上傳服務（本地儲存或 S3），用於上傳文章附件
     private final FileUploadService fileUploadService;
@@ -34,29 +34,29 @@ public class ArticleController {
 
     private static Map<Long, Article> createArticles() {
         Map<Long, Article> articlesMap = new HashMap<>();
-        articlesMap.put(1L, new Article(1L, "Free Article", "This is a free article.", false));
-        articlesMap.put(2L, new Article(2L, "Premium Article", "This is a premium article, for premium members only.", true));
+        articlesMap.put(1L, new Article(1L, "Free Article", "This is a free article.", false, null));
+        articlesMap.put(2L, new Article(2L, "Premium Article", "This is a premium article, for premium members only.", true, null));
         return Collections.unmodifiableMap(articlesMap);
     }
 
     /**
      * ✅ 訪問權限：Basic & Premium
-     *   - `@PreAuthorize("hasAnyRole('basic_access', 'premium_access')")`
+     *   - `@PreAuthorize("hasAnyRole('BASIC_ACCESS', 'PREMIUM_ACCESS')")`
      *   - Spring Security 會自動加上 `ROLE_` 前綴，這裡不用手動添加
      */
     @GetMapping("/basic")
-    @PreAuthorize("hasAnyRole('basic_access', 'premium_access')")
+    @PreAuthorize("hasAnyRole('BASIC_ACCESS', 'PREMIUM_ACCESS')")
     public String getBasicArticle() {
         return "Free Article";
     }
 
     /**
      * ✅ 訪問權限：Premium
-     *   - `@PreAuthorize("hasRole('premium_access')")`
+     *   - `@PreAuthorize("hasRole('PREMIUM_ACCESS')")`
      *   - Spring Security 會自動加上 `ROLE_`
      */
     @GetMapping("/premium")
-    @PreAuthorize("hasRole('premium_access')")
+    @PreAuthorize("hasRole('PREMIUM_ACCESS')")
     public String getPremiumArticle() {
         return "Premium Article";
     }
@@ -76,7 +76,7 @@ public class ArticleController {
         // 如果是 Premium 文章，需要檢查角色
         if (article.isPremium()) {
             boolean isPremiumUser = authentication.getAuthorities()
-                    .contains(new SimpleGrantedAuthority("ROLE_premium_access"));
+                    .contains(new SimpleGrantedAuthority(ROLE_PREMIUM));
             if (isPremiumUser) {
                 return ResponseEntity.ok(article);
             } else {
@@ -94,7 +94,7 @@ public class ArticleController {
      *   - 綁定至指定的 articleId
      */
     @PostMapping("/{id}/upload")
-    @PreAuthorize("hasRole('editor_access') or hasRole('admin_access')") 
+    @PreAuthorize("hasRole('EDITOR_ACCESS') or hasRole('ADMIN_ACCESS')")
     // e.g. 只有 Editor/Admin 才能上傳附件
     public ResponseEntity<?> uploadArticleAttachment(
             @PathVariable Long id,
@@ -0,0 +1,73 @@
+package com.example.keycloak.api;
+
+import com.example.keycloak.service.UploadCapacityExceededException;
+import com.example.keycloak.service.UploadConcurrencyLimiter;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.security.SecurityProperties;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.security.web.util.matcher.AntPathRequestMatcher;
+import org.springframework.security.web.util.matcher.OrRequestMatcher;
+import org.springframework.security.web.util.matcher.RequestMatcher;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * 上傳請求的准入控制：在讀取 multipart 主體前取得上傳額度，並持有到整個請求結束。
+ *   - 排在 Spring Security 之後：未授權的請求不會佔用額度
+ *   - 排在 DispatcherServlet 之前：額度用完時直接回傳 503，容器不會接收或暫存主體
+ *   - 每個請求只取一次額度，多檔上傳不會在中途因額度不足而留下部分檔案
+ */
+@Component
+@Order(SecurityProperties.DEFAULT_FILTER_ORDER + 1)
+public class UploadAdmissionFilter extends OncePerRequestFilter {
+
+    private final UploadConcurrencyLimiter uploadConcurrencyLimiter;
+    private final RequestMatcher uploadRequestMatcher;
+
+    public UploadAdmissionFilter(UploadConcurrencyLimiter uploadConcurrencyLimiter,
+                                 @Value("${app.upload.concurrency.paths:/api/files/**,/api/articles/*/upload}") String[] paths) {
+        this.uploadConcurrencyLimiter = uploadConcurrencyLimiter;
+        this.uploadRequestMatcher = new OrRequestMatcher(Arrays.stream(paths)
+                .map(String::trim)
+                .map(path -> (RequestMatcher) new AntPathRequestMatcher(path, HttpMethod.POST.name()))
+                .toList());
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !uploadRequestMatcher.matches(request);
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        UploadConcurrencyLimiter.Permit permit;
+        try {
+            permit = uploadConcurrencyLimiter.acquire();
+        } catch (UploadCapacityExceededException e) {
+            // ❌ 額度用完：主體尚未讀取，請客戶端稍後重試
+            response.setStatus(HttpStatus.SERVICE_UNAVAILABLE.value());
+            response.setHeader(HttpHeaders.RETRY_AFTER, "1");
+            response.setContentType(MediaType.TEXT_PLAIN_VALUE);
+            response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+            response.getWriter().write("上傳量過大，請稍後再試: " + e.getMessage());
+            return;
+        }
+
+        try (permit) {
+            filterChain.doFilter(request, response);
+        }
+    }
+}
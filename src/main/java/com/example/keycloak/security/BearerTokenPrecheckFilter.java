@@ -0,0 +1,167 @@
+package com.example.keycloak.security;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.Set;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.security.web.util.matcher.RequestMatcher;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * 🚀 **驗簽前的 Bearer Token 快速檢查**
+ * 只讀取「未驗證」的 header / payload，明顯無效的 Token 直接回 401，
+ * 不進行 JWT 驗簽、也不讀取（multipart）請求主體：
+ *   - Authorization header 過長、JWT 段數不是 3
+ *   - `alg` 不在允許清單
+ *   - `kid` 不在 Keycloak JWKS 內，且 Token 簽發於最近一次成功載入 JWKS 之前（之後簽發的可能用了剛輪替的金鑰，
+ *     交由完整驗證處理；JWKS 在背景重新抓取，不阻塞請求）
+ *   - `iss` 不是本 realm、`exp` 已過期
+ * 通過檢查不代表 Token 有效，完整驗證仍由 BearerTokenAuthenticationFilter 負責。
+ */
+public class BearerTokenPrecheckFilter extends OncePerRequestFilter {
+
+    private static final String BEARER_PREFIX = "Bearer ";
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final Base64.Decoder base64Url = Base64.getUrlDecoder();
+
+    private final String issuer;
+    private final Set<String> allowedAlgorithms;
+    private final int maxHeaderLength;
+    private final Duration clockSkew;
+    private final JwkSetKeyIds knownKeyIds;
+    private final RequestMatcher opaqueTokenPaths;
+    private final Clock clock;
+
+    BearerTokenPrecheckFilter(String issuer,
+                              Set<String> allowedAlgorithms,
+                              int maxHeaderLength,
+                              Duration clockSkew,
+                              JwkSetKeyIds knownKeyIds,
+                              RequestMatcher opaqueTokenPaths,
+                              Clock clock) {
+        this.issuer = issuer;
+        this.allowedAlgorithms = allowedAlgorithms;
+        this.maxHeaderLength = maxHeaderLength;
+        this.clockSkew = clockSkew;
+        this.knownKeyIds = knownKeyIds;
+        this.opaqueTokenPaths = opaqueTokenPaths;
+        this.clock = clock;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        String authorization = request.getHeader(HttpHeaders.AUTHORIZATION);
+
+        // 沒有 Bearer Token 的請求交給後續授權規則處理（公開 API 或 401）
+        if (authorization == null || !authorization.regionMatches(true, 0, BEARER_PREFIX, 0, BEARER_PREFIX.length())) {
+            filterChain.doFilter(request, response);
+            return;
+        }
+
+        if (!isPlausible(authorization, request)) {
+            // ❌ 直接回 401，不讀取請求主體
+            response.setStatus(HttpStatus.UNAUTHORIZED.value());
+            return;
+        }
+
+        filterChain.doFilter(request, response);
+    }
+
+    private boolean isPlausible(String authorization, HttpServletRequest request) {
+        if (authorization.length() > maxHeaderLength) {
+            return false;
+        }
+        String token = authorization.substring(BEARER_PREFIX.length()).trim();
+        if (token.isEmpty()) {
+            return false;
+        }
+
+        int firstDot = token.indexOf('.');
+        int secondDot = (firstDot < 0) ? -1 : token.indexOf('.', firstDot + 1);
+        if (secondDot < 0 || token.indexOf('.', secondDot + 1) >= 0) {
+            // 不是 JWT 格式：只有 Introspection 路徑接受 opaque token
+            return opaqueTokenPaths.matches(request);
+        }
+
+        try {
+            JsonNode header = decodeSegment(token.substring(0, firstDot));
+            JsonNode payload = decodeSegment(token.substring(firstDot + 1, secondDot));
+            return hasAllowedAlgorithm(header)
+                    && hasKnownKeyId(header, payload)
+                    && hasExpectedIssuer(payload)
+                    && isNotExpired(payload);
+        } catch (IOException | IllegalArgumentException ex) {
+            // Base64 或 JSON 格式錯誤
+            return false;
+        }
+    }
+
+    private JsonNode decodeSegment(String segment) throws IOException {
+        JsonNode node = objectMapper.readTree(new String(base64Url.decode(segment), StandardCharsets.UTF_8));
+        if (node == null || !node.isObject()) {
+            throw new IllegalArgumentException("JWT segment 不是 JSON 物件");
+        }
+        return node;
+    }
+
+    private boolean hasAllowedAlgorithm(JsonNode header) {
+        JsonNode alg = header.get("alg");
+        return alg != null && allowedAlgorithms.contains(alg.asText());
+    }
+
+    private boolean hasKnownKeyId(JsonNode header, JsonNode payload) {
+        JsonNode kid = header.get("kid");
+        if (kid == null) {
+            return false;
+        }
+        if (knownKeyIds.isKnown(kid.asText())) {
+            return true;
+        }
+        // 未知 kid：只有在最近一次 JWKS 快照之前簽發的 Token 才能確定是無效金鑰
+        Instant refreshedAt = knownKeyIds.lastSuccessfulRefresh();
+        JsonNode iat = payload.get("iat");
+        if (refreshedAt == null || iat == null || !iat.isNumber()) {
+            return refreshedAt == null;
+        }
+        long issuedAt = iat.asLong();
+        long now = clock.instant().getEpochSecond();
+        return issuedAt >= refreshedAt.minus(clockSkew).getEpochSecond()
+                && issuedAt <= now + clockSkew.getSeconds(); // 簽發時間在未來的 Token 不合理
+    }
+
+    private boolean hasExpectedIssuer(JsonNode payload) {
+        if (issuer == null || issuer.isEmpty()) {
+            return true;
+        }
+        JsonNode iss = payload.get("iss");
+        return iss != null && issuer.equals(iss.asText());
+    }
+
+    private boolean isNotExpired(JsonNode payload) {
+        JsonNode exp = payload.get("exp");
+        if (exp == null) {
+            return true; // 沒有 exp 交由完整驗證決定
+        }
+        if (!exp.isNumber()) {
+            return false;
+        }
+        long nowEpochSecond = clock.instant().minus(clockSkew).getEpochSecond();
+        return exp.asLong() >= nowEpochSecond;
+    }
+}
@@ -0,0 +1,74 @@
+package com.example.keycloak.security;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Token Introspection 端點的簡易斷路器。
+ *   - 連續 `failureThreshold` 次失敗或過慢（超過 `slowCallThreshold`）即打開
+ *   - 打開期間不呼叫 Keycloak，由呼叫端退回本地 JWT 驗證
+ *   - `openDuration` 過後進入半開狀態，只放行一個試探請求
+ */
+class IntrospectionCircuitBreaker {
+
+    private final int failureThreshold;
+    private final Duration slowCallThreshold;
+    private final Duration openDuration;
+    private final Clock clock;
+
+    private final AtomicInteger consecutiveFailures = new AtomicInteger();
+    private final AtomicBoolean halfOpenTrialInFlight = new AtomicBoolean();
+
+    // null 代表斷路器關閉（正常呼叫 Introspection）
+    private volatile Instant openedAt;
+
+    IntrospectionCircuitBreaker(int failureThreshold, Duration slowCallThreshold, Duration openDuration, Clock clock) {
+        this.failureThreshold = failureThreshold;
+        this.slowCallThreshold = slowCallThreshold;
+        this.openDuration = openDuration;
+        this.clock = clock;
+    }
+
+    /**
+     * 是否允許呼叫 Introspection 端點
+     */
+    boolean allowRequest() {
+        Instant opened = openedAt;
+        if (opened == null) {
+            return true;
+        }
+        if (clock.instant().isBefore(opened.plus(openDuration))) {
+            return false;
+        }
+        // 半開：只讓一個請求去試探端點是否恢復
+        return halfOpenTrialInFlight.compareAndSet(false, true);
+    }
+
+    /**
+     * 記錄一次呼叫結果
+     *
+     * @param endpointHealthy 端點是否正常回應（`active=false` 也算正常回應）
+     * @param elapsed         呼叫耗時
+     */
+    void record(boolean endpointHealthy, Duration elapsed) {
+        if (endpointHealthy && elapsed.compareTo(slowCallThreshold) <= 0) {
+            consecutiveFailures.set(0);
+            openedAt = null;
+            halfOpenTrialInFlight.set(false);
+            return;
+        }
+
+        // 半開試探失敗，或連續失敗達門檻 → 重新打開
+        if (openedAt != null || consecutiveFailures.incrementAndGet() >= failureThreshold) {
+            openedAt = clock.instant();
+            halfOpenTrialInFlight.set(false);
+        }
+    }
+
+    boolean isOpen() {
+        return openedAt != null;
+    }
+}
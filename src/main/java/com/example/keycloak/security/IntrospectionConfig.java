@@ -0,0 +1,128 @@
+package com.example.keycloak.security;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.util.Arrays;
+
+import jakarta.servlet.http.HttpServletRequest;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.web.client.RestTemplateBuilder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.security.authentication.AuthenticationManager;
+import org.springframework.security.authentication.AuthenticationManagerResolver;
+import org.springframework.security.authentication.ProviderManager;
+import org.springframework.security.oauth2.jwt.JwtDecoder;
+import org.springframework.security.oauth2.server.resource.authentication.JwtAuthenticationProvider;
+import org.springframework.security.oauth2.server.resource.authentication.OpaqueTokenAuthenticationProvider;
+import org.springframework.security.oauth2.server.resource.introspection.OpaqueTokenIntrospector;
+import org.springframework.security.oauth2.server.resource.introspection.SpringOpaqueTokenIntrospector;
+import org.springframework.security.web.util.matcher.AntPathRequestMatcher;
+import org.springframework.security.web.util.matcher.OrRequestMatcher;
+import org.springframework.security.web.util.matcher.RequestMatcher;
+import org.springframework.web.client.RestOperations;
+
+/**
+ * Token Introspection 模式設定。
+ *   - 預設關閉：所有路徑維持本地 JWT 驗證
+ *   - 開啟後，`paths` 內的路徑（例如上傳端點）改向 Keycloak 查詢 Token 是否仍有效，
+ *     可即時反映撤銷，也能接受 opaque token
+ */
+@Configuration
+public class IntrospectionConfig {
+
+    @Value("${app.security.introspection.enabled:false}")
+    private boolean enabled;
+
+    @Value("${app.security.introspection.paths:/api/files/**,/api/articles/*/upload}")
+    private String[] paths;
+
+    @Value("${app.security.introspection.introspection-uri:http://localhost:8080/realms/news-portal/protocol/openid-connect/token/introspect}")
+    private String introspectionUri;
+
+    @Value("${app.security.introspection.client-id:news-api}")
+    private String clientId;
+
+    @Value("${app.security.introspection.client-secret:}")
+    private String clientSecret;
+
+    @Value("${app.security.introspection.cache-ttl:30s}")
+    private Duration cacheTtl;
+
+    @Value("${app.security.introspection.cache-max-entries:10000}")
+    private int cacheMaxEntries;
+
+    @Value("${app.security.introspection.timeout:500ms}")
+    private Duration timeout;
+
+    @Value("${app.security.introspection.circuit-breaker.failure-threshold:5}")
+    private int failureThreshold;
+
+    @Value("${app.security.introspection.circuit-breaker.slow-call-threshold:300ms}")
+    private Duration slowCallThreshold;
+
+    @Value("${app.security.introspection.circuit-breaker.open-duration:30s}")
+    private Duration openDuration;
+
+    /**
+     * 需要走 Introspection 的路徑；未開啟時不匹配任何請求
+     */
+    @Bean
+    public RequestMatcher introspectionRequestMatcher() {
+        if (!enabled) {
+            return request -> false;
+        }
+        return new OrRequestMatcher(Arrays.stream(paths)
+                .map(String::trim)
+                .<RequestMatcher>map(AntPathRequestMatcher::new)
+                .toList());
+    }
+
+    /**
+     * 依路徑選擇 AuthenticationManager：Introspection 路徑 → Keycloak，其餘 → 本地 JWT
+     */
+    @Bean
+    public AuthenticationManagerResolver<HttpServletRequest> bearerTokenAuthenticationManagerResolver(
+            JwtDecoder jwtDecoder,
+            JwtAuthConverter jwtAuthConverter,
+            RestTemplateBuilder restTemplateBuilder) {
+
+        JwtAuthenticationProvider jwtProvider = new JwtAuthenticationProvider(jwtDecoder);
+        jwtProvider.setJwtAuthenticationConverter(jwtAuthConverter); // ✅ 轉換 Keycloak 角色格式
+        AuthenticationManager jwtManager = new ProviderManager(jwtProvider);
+
+        if (!enabled) {
+            return request -> jwtManager;
+        }
+
+        OpaqueTokenIntrospector introspector =
+                keycloakOpaqueTokenIntrospector(jwtDecoder, jwtAuthConverter, restTemplateBuilder);
+        AuthenticationManager introspectionManager =
+                new ProviderManager(new OpaqueTokenAuthenticationProvider(introspector));
+        RequestMatcher introspectionPaths = introspectionRequestMatcher();
+
+        return request -> introspectionPaths.matches(request) ? introspectionManager : jwtManager;
+    }
+
+    private OpaqueTokenIntrospector keycloakOpaqueTokenIntrospector(JwtDecoder jwtDecoder,
+                                                                    JwtAuthConverter jwtAuthConverter,
+                                                                    RestTemplateBuilder restTemplateBuilder) {
+        // Introspection 端點需以 confidential client 的 Basic Auth 呼叫，逾時即視為失敗
+        RestOperations restOperations = restTemplateBuilder
+                .basicAuthentication(clientId, clientSecret)
+                .setConnectTimeout(timeout)
+                .setReadTimeout(timeout)
+                .build();
+
+        return new KeycloakOpaqueTokenIntrospector(
+                new SpringOpaqueTokenIntrospector(introspectionUri, restOperations),
+                jwtDecoder,
+                jwtAuthConverter,
+                new IntrospectionCircuitBreaker(failureThreshold, slowCallThreshold, openDuration, Clock.systemUTC()),
+                cacheTtl,
+                cacheMaxEntries,
+                timeout,
+                Clock.systemUTC());
+    }
+}
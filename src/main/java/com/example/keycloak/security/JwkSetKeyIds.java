@@ -0,0 +1,124 @@
+package com.example.keycloak.security;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Collection;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+import org.springframework.web.client.RestClientException;
+import org.springframework.web.client.RestOperations;
+
+/**
+ * Keycloak JWKS 內目前有效的 `kid` 清單，供 BearerTokenPrecheckFilter 在驗簽前快速判斷。
+ *   - 遇到未知 `kid` 才重新抓取（金鑰輪替），且最短間隔 `minRefreshInterval`，避免垃圾流量放大成對 Keycloak 的請求
+ *   - 重新抓取一律在背景執行，請求執行緒不會等待 JWKS
+ *   - `lastSuccessfulRefresh()`：最近一次成功載入的快照時間；在此之後簽發的 Token 可能使用剛輪替的新金鑰
+ *   - JWKS 從未成功載入時一律放行（fail-open），交由後續完整驗證處理
+ */
+class JwkSetKeyIds {
+
+    private final Supplier<Set<String>> keyIdLoader;
+    private final Duration minRefreshInterval;
+    private final Clock clock;
+    private final Executor refreshExecutor;
+    private final AtomicBoolean refreshing = new AtomicBoolean();
+
+    private volatile Set<String> keyIds;
+    private volatile Instant lastRefreshAttempt;
+    private volatile Instant lastSuccessfulRefresh;
+
+    JwkSetKeyIds(Supplier<Set<String>> keyIdLoader, Duration minRefreshInterval, Clock clock, Executor refreshExecutor) {
+        this.keyIdLoader = keyIdLoader;
+        this.minRefreshInterval = minRefreshInterval;
+        this.clock = clock;
+        this.refreshExecutor = refreshExecutor;
+    }
+
+    /**
+     * 由 JWKS 端點載入 `keys[].kid`，以單一背景執行緒重新抓取
+     */
+    @SuppressWarnings("unchecked")
+    static JwkSetKeyIds fromJwkSetUri(String jwkSetUri, RestOperations restOperations, Duration minRefreshInterval) {
+        Supplier<Set<String>> loader = () -> {
+            Map<String, Object> jwkSet = restOperations.getForObject(jwkSetUri, Map.class);
+            Object keys = (jwkSet != null) ? jwkSet.get("keys") : null;
+            if (!(keys instanceof Collection)) {
+                return null;
+            }
+            return ((Collection<Object>) keys).stream()
+                    .filter(Map.class::isInstance)
+                    .map(key -> ((Map<String, Object>) key).get("kid"))
+                    .filter(Objects::nonNull)
+                    .map(Object::toString)
+                    .collect(Collectors.toUnmodifiableSet());
+        };
+        Executor executor = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "jwks-key-id-refresh");
+            thread.setDaemon(true);
+            return thread;
+        });
+        return new JwkSetKeyIds(loader, minRefreshInterval, Clock.systemUTC(), executor);
+    }
+
+    /**
+     * 不會阻塞：`kid` 未知時只在背景排程重新抓取
+     *
+     * @return `kid` 已知，或 JWKS 從未成功載入時回傳 true；目前快照內沒有此 `kid` 才回傳 false
+     */
+    boolean isKnown(String kid) {
+        Set<String> current = keyIds;
+        if (current != null && current.contains(kid)) {
+            return true;
+        }
+        refreshInBackgroundIfDue();
+        current = keyIds;
+        return current == null || current.contains(kid);
+    }
+
+    /**
+     * @return 最近一次成功載入 JWKS 的時間（以開始抓取的時間為準）；從未成功時為 null
+     */
+    Instant lastSuccessfulRefresh() {
+        return lastSuccessfulRefresh;
+    }
+
+    private void refreshInBackgroundIfDue() {
+        Instant last = lastRefreshAttempt;
+        if (last != null && clock.instant().isBefore(last.plus(minRefreshInterval))) {
+            return;
+        }
+        if (!refreshing.compareAndSet(false, true)) {
+            return; // 已有抓取在進行中
+        }
+        Instant startedAt = clock.instant();
+        lastRefreshAttempt = startedAt;
+        try {
+            refreshExecutor.execute(() -> refresh(startedAt));
+        } catch (RejectedExecutionException ex) {
+            refreshing.set(false);
+        }
+    }
+
+    private void refresh(Instant startedAt) {
+        try {
+            Set<String> loaded = keyIdLoader.get();
+            if (loaded != null) {
+                keyIds = loaded;
+                lastSuccessfulRefresh = startedAt;
+            }
+        } catch (RestClientException ex) {
+            // JWKS 暫時無法取得：保留舊清單
+        } finally {
+            refreshing.set(false);
+        }
+    }
+}
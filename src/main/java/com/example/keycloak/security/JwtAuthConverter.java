@@ -24,24 +24,33 @@ public class JwtAuthConverter implements Converter<Jwt, AbstractAuthenticationTo
     public AbstractAuthenticationToken convert(@NonNull Jwt jwt) {
         Collection<GrantedAuthority> authorities = Stream.concat(
             jwtGrantedAuthoritiesConverter.convert(jwt).stream(),
-            Stream.concat(extractApiRoles(jwt).stream(), extractRealmRoles(jwt).stream()) // ✅ 加入 `realm_access`
+            extractKeycloakRoles(jwt.getClaims()).stream() // ✅ 加入 `news-api` 與 `realm_access`
         ).collect(Collectors.toSet());
 
         return new JwtAuthenticationToken(jwt, authorities);
     }
 
+    /**
+     * 🚀 **由 claims 解析 Keycloak 角色（`news-api` + `realm_access`）**
+     * 本地 JWT 與 Token Introspection 回應共用同一套角色對應規則
+     */
+    Collection<GrantedAuthority> extractKeycloakRoles(Map<String, Object> claims) {
+        return Stream.concat(extractApiRoles(claims).stream(), extractRealmRoles(claims).stream())
+                .collect(Collectors.toSet());
+    }
+
     /**
      * 🚀 **解析 `news-api` 內的角色**
      * 這裡會從 `resource_access` 內找到 `news-api` 的 `roles`
      */
     @SuppressWarnings("unchecked")
-    private Collection<? extends GrantedAuthority> extractApiRoles(Jwt jwt) {
+    private Collection<? extends GrantedAuthority> extractApiRoles(Map<String, Object> claims) {
         Map<String, Object> resourceAccess;
         Map<String, Object> apiRolesMap;
         Collection<String> apiRoles;
 
         // 🔍 取得 `resource_access`
-        Object rawResourceAccess = jwt.getClaim("resource_access");
+        Object rawResourceAccess = claims.get("resource_access");
         if (!(rawResourceAccess instanceof Map)) {
             return Set.of();
         }
@@ -72,12 +81,12 @@ public class JwtAuthConverter implements Converter<Jwt, AbstractAuthenticationTo
      * 這些是全域角色，可能會影響 API 權限
      */
     @SuppressWarnings("unchecked")
-    private Collection<? extends GrantedAuthority> extractRealmRoles(Jwt jwt) {
+    private Collection<? extends GrantedAuthority> extractRealmRoles(Map<String, Object> claims) {
         Map<String, Object> realmAccess;
         Collection<String> realmRoles;
 
         // 🔍 取得 `realm_access`
-        Object rawRealmAccess = jwt.getClaim("realm_access");
+        Object rawRealmAccess = claims.get("realm_access");
         if (!(rawRealmAccess instanceof Map)) {
             return Set.of();
         }
@@ -0,0 +1,56 @@
+package com.example.keycloak.security;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.stream.Collectors;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.web.client.RestTemplateBuilder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.security.oauth2.jwt.JwtDecoder;
+import org.springframework.security.oauth2.jwt.JwtValidators;
+import org.springframework.security.oauth2.jwt.NimbusJwtDecoder;
+
+import com.nimbusds.jose.JWSAlgorithm;
+import com.nimbusds.jose.proc.JWSVerificationKeySelector;
+import com.nimbusds.jose.proc.SecurityContext;
+import com.nimbusds.jwt.proc.DefaultJWTProcessor;
+
+/**
+ * 驗簽用的 JwtDecoder（取代 Spring Boot 自動設定的版本）。
+ *   - 以 RefreshingJwkSource 取代 Nimbus RemoteJWKSet：金鑰輪替時不會誤擋新 kid，
+ *     垃圾 kid 也不會放大成對 Keycloak JWKS 的請求
+ *   - exp / nbf / iss 檢查與自動設定相同（JwtValidators）
+ */
+@Configuration
+public class JwtDecoderConfig {
+
+    @Bean
+    public JwtDecoder jwtDecoder(
+            @Value("${spring.security.oauth2.resourceserver.jwt.issuer-uri:}") String issuer,
+            @Value("${spring.security.oauth2.resourceserver.jwt.jwk-set-uri}") String jwkSetUri,
+            @Value("${app.security.precheck.allowed-algorithms:RS256}") String[] allowedAlgorithms,
+            @Value("${app.security.jwt.jwks-min-refresh-interval:1s}") Duration jwksMinRefreshInterval,
+            RestTemplateBuilder restTemplateBuilder) {
+
+        RefreshingJwkSource jwkSource = RefreshingJwkSource.fromJwkSetUri(
+                jwkSetUri,
+                restTemplateBuilder.setConnectTimeout(Duration.ofSeconds(2)).setReadTimeout(Duration.ofSeconds(2)).build(),
+                jwksMinRefreshInterval);
+
+        DefaultJWTProcessor<SecurityContext> jwtProcessor = new DefaultJWTProcessor<>();
+        jwtProcessor.setJWSKeySelector(new JWSVerificationKeySelector<>(
+                Arrays.stream(allowedAlgorithms).map(String::trim).map(JWSAlgorithm::parse).collect(Collectors.toUnmodifiableSet()),
+                jwkSource));
+        jwtProcessor.setJWTClaimsSetVerifier((claims, context) -> {
+            // Claims 交給下方的 OAuth2TokenValidator 檢查（與 NimbusJwtDecoder.withJwkSetUri 相同）
+        });
+
+        NimbusJwtDecoder jwtDecoder = new NimbusJwtDecoder(jwtProcessor);
+        jwtDecoder.setJwtValidator(issuer.isEmpty()
+                ? JwtValidators.createDefault()
+                : JwtValidators.createDefaultWithIssuer(issuer));
+        return jwtDecoder;
+    }
+}
@@ -0,0 +1,253 @@
+package com.example.keycloak.security;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.HexFormat;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.oauth2.core.OAuth2AuthenticatedPrincipal;
+import org.springframework.security.oauth2.core.OAuth2TokenIntrospectionClaimNames;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.security.oauth2.jwt.JwtDecoder;
+import org.springframework.security.oauth2.jwt.JwtException;
+import org.springframework.security.oauth2.server.resource.introspection.BadOpaqueTokenException;
+import org.springframework.security.oauth2.server.resource.introspection.OAuth2IntrospectionAuthenticatedPrincipal;
+import org.springframework.security.oauth2.server.resource.introspection.OAuth2IntrospectionException;
+import org.springframework.security.oauth2.server.resource.introspection.OpaqueTokenIntrospector;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+
+/**
+ * 🚀 **Keycloak Token Introspection（RFC 7662）**
+ *   - 結果以短 TTL 快取（包含 `active=false` 的撤銷結果），避免每個請求都打 Keycloak；
+ *     快取有上限（LRU 淘汰），key 為 Token 的 SHA-256，記憶體中不保留原始 Bearer Token
+ *   - 同一個 Token 的並行請求合併為單一次對外呼叫
+ *   - 端點過慢或失敗時由斷路器打開，退回本地 JWT 驗證（opaque token 則回 401）
+ */
+public class KeycloakOpaqueTokenIntrospector implements OpaqueTokenIntrospector {
+
+    private final OpaqueTokenIntrospector delegate;
+    private final JwtDecoder jwtDecoder;
+    private final JwtAuthConverter jwtAuthConverter;
+    private final IntrospectionCircuitBreaker circuitBreaker;
+    private final Duration cacheTtl;
+    private final Duration timeout;
+    private final Clock clock;
+
+    private final Cache<String, CachedResult> cache;
+    private final Map<String, CompletableFuture<OAuth2AuthenticatedPrincipal>> inFlight = new ConcurrentHashMap<>();
+
+    KeycloakOpaqueTokenIntrospector(OpaqueTokenIntrospector delegate,
+                                    JwtDecoder jwtDecoder,
+                                    JwtAuthConverter jwtAuthConverter,
+                                    IntrospectionCircuitBreaker circuitBreaker,
+                                    Duration cacheTtl,
+                                    int cacheMaxEntries,
+                                    Duration timeout,
+                                    Clock clock) {
+        this.delegate = delegate;
+        this.jwtDecoder = jwtDecoder;
+        this.jwtAuthConverter = jwtAuthConverter;
+        this.circuitBreaker = circuitBreaker;
+        this.cacheTtl = cacheTtl;
+        this.timeout = timeout;
+        this.clock = clock;
+        // 每筆項目依自身到期時間（TTL 與 Token exp 取較早者）自寫入起算過期
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(cacheMaxEntries)
+                .expireAfter(new UntilExpiresAt(clock))
+                .build();
+    }
+
+    @Override
+    public OAuth2AuthenticatedPrincipal introspect(String token) {
+        String key = cacheKey(token);
+
+        // 1. 先查快取
+        CachedResult cached = cache.getIfPresent(key);
+        if (cached != null) {
+            if (cached.isValidAt(clock.instant())) {
+                return cached.unwrap();
+            }
+            cache.asMap().remove(key, cached);
+        }
+
+        // 2. 合併並行請求：只有第一個請求真正呼叫 Keycloak，其餘等待同一個結果
+        CompletableFuture<OAuth2AuthenticatedPrincipal> call = new CompletableFuture<>();
+        CompletableFuture<OAuth2AuthenticatedPrincipal> existing = inFlight.putIfAbsent(key, call);
+        if (existing != null) {
+            return await(existing, token);
+        }
+
+        try {
+            // 3. 斷路器打開 → 直接走本地 JWT 驗證
+            OAuth2AuthenticatedPrincipal principal = circuitBreaker.allowRequest()
+                    ? introspectRemotely(token, key)
+                    : introspectLocally(token);
+            call.complete(principal);
+            return principal;
+        } catch (RuntimeException ex) {
+            call.completeExceptionally(ex);
+            throw ex;
+        } finally {
+            inFlight.remove(key, call);
+        }
+    }
+
+    /**
+     * 呼叫 Keycloak Introspection 端點，並記錄到斷路器與快取
+     */
+    private OAuth2AuthenticatedPrincipal introspectRemotely(String token, String key) {
+        long start = System.nanoTime();
+        try {
+            OAuth2AuthenticatedPrincipal principal = withKeycloakRoles(delegate.introspect(token));
+            circuitBreaker.record(true, elapsedSince(start));
+            cache.put(key, CachedResult.active(principal, expiresAt(principal)));
+            return principal;
+        } catch (BadOpaqueTokenException ex) {
+            // Token 無效或已被撤銷：端點本身正常，負面結果同樣快取
+            circuitBreaker.record(true, elapsedSince(start));
+            cache.put(key, CachedResult.inactive(ex, clock.instant().plus(cacheTtl)));
+            throw ex;
+        } catch (OAuth2IntrospectionException ex) {
+            // 端點逾時 / 錯誤 → 計入斷路器並退回本地驗證
+            circuitBreaker.record(false, elapsedSince(start));
+            return introspectLocally(token);
+        } catch (RuntimeException ex) {
+            // 其他非預期錯誤（例如回應格式異常）同樣計入斷路器，否則半開試探會一直卡住
+            circuitBreaker.record(false, elapsedSince(start));
+            throw ex;
+        }
+    }
+
+    private OAuth2AuthenticatedPrincipal await(CompletableFuture<OAuth2AuthenticatedPrincipal> call, String token) {
+        try {
+            // 領頭請求最多耗時「連線逾時 + 讀取逾時」，等待同樣長的時間
+            return call.get(timeout.multipliedBy(2).toMillis(), TimeUnit.MILLISECONDS);
+        } catch (ExecutionException ex) {
+            if (ex.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw new OAuth2IntrospectionException(ex.getCause().getMessage(), ex.getCause());
+        } catch (TimeoutException ex) {
+            return introspectLocally(token);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new OAuth2IntrospectionException("Introspection 等待被中斷", ex);
+        }
+    }
+
+    /**
+     * 退回本地 JWT 驗證（簽章 + exp + iss），無法得知撤銷狀態
+     */
+    private OAuth2AuthenticatedPrincipal introspectLocally(String token) {
+        Jwt jwt;
+        try {
+            jwt = jwtDecoder.decode(token);
+        } catch (JwtException ex) {
+            throw new BadOpaqueTokenException("Introspection 無法使用，且 Token 無法以本地 JWT 驗證: " + ex.getMessage());
+        }
+        Collection<GrantedAuthority> authorities = jwtAuthConverter.convert(jwt).getAuthorities();
+        return new OAuth2IntrospectionAuthenticatedPrincipal(jwt.getSubject(), jwt.getClaims(), authorities);
+    }
+
+    /**
+     * Introspection 回應同樣帶有 `realm_access` / `resource_access`，套用與 JWT 相同的角色對應
+     */
+    private OAuth2AuthenticatedPrincipal withKeycloakRoles(OAuth2AuthenticatedPrincipal principal) {
+        Set<GrantedAuthority> authorities = new HashSet<>(principal.getAuthorities());
+        authorities.addAll(jwtAuthConverter.extractKeycloakRoles(principal.getAttributes()));
+        return new OAuth2IntrospectionAuthenticatedPrincipal(principal.getName(), principal.getAttributes(), authorities);
+    }
+
+    /**
+     * 快取到期時間：TTL 與 Token 本身 `exp` 取較早者
+     */
+    private Instant expiresAt(OAuth2AuthenticatedPrincipal principal) {
+        Instant ttlExpiry = clock.instant().plus(cacheTtl);
+        Object exp = principal.getAttribute(OAuth2TokenIntrospectionClaimNames.EXP);
+        if (exp instanceof Instant tokenExpiry && tokenExpiry.isBefore(ttlExpiry)) {
+            return tokenExpiry;
+        }
+        return ttlExpiry;
+    }
+
+    /**
+     * 快取與合併請求的 key：Token 的 SHA-256（hex）
+     */
+    private static String cacheKey(String token) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.US_ASCII));
+            return HexFormat.of().formatHex(digest);
+        } catch (NoSuchAlgorithmException ex) {
+            throw new IllegalStateException("JVM 不支援 SHA-256", ex);
+        }
+    }
+
+    private static Duration elapsedSince(long startNanos) {
+        return Duration.ofNanos(System.nanoTime() - startNanos);
+    }
+
+    /**
+     * 快取項目於 `expiresAt` 過期；讀取不會延長壽命
+     */
+    private record UntilExpiresAt(Clock clock) implements Expiry<String, CachedResult> {
+
+        @Override
+        public long expireAfterCreate(String key, CachedResult result, long currentTime) {
+            return Math.max(0, Duration.between(clock.instant(), result.expiresAt()).toNanos());
+        }
+
+        @Override
+        public long expireAfterUpdate(String key, CachedResult result, long currentTime, long currentDuration) {
+            return expireAfterCreate(key, result, currentTime);
+        }
+
+        @Override
+        public long expireAfterRead(String key, CachedResult result, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+    }
+
+    /**
+     * 快取項目：有效的 principal 或 `active=false` 的錯誤
+     */
+    private record CachedResult(OAuth2AuthenticatedPrincipal principal,
+                                BadOpaqueTokenException error,
+                                Instant expiresAt) {
+
+        static CachedResult active(OAuth2AuthenticatedPrincipal principal, Instant expiresAt) {
+            return new CachedResult(principal, null, expiresAt);
+        }
+
+        static CachedResult inactive(BadOpaqueTokenException error, Instant expiresAt) {
+            return new CachedResult(null, error, expiresAt);
+        }
+
+        boolean isValidAt(Instant now) {
+            return now.isBefore(expiresAt);
+        }
+
+        OAuth2AuthenticatedPrincipal unwrap() {
+            if (error != null) {
+                throw error;
+            }
+            return principal;
+        }
+    }
+}
@@ -0,0 +1,123 @@
+package com.example.keycloak.security;
+
+import java.text.ParseException;
+import java.time.Duration;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.web.client.RestClientException;
+import org.springframework.web.client.RestOperations;
+
+import com.nimbusds.jose.KeySourceException;
+import com.nimbusds.jose.jwk.JWK;
+import com.nimbusds.jose.jwk.JWKSelector;
+import com.nimbusds.jose.jwk.JWKSet;
+import com.nimbusds.jose.jwk.source.JWKSource;
+import com.nimbusds.jose.proc.SecurityContext;
+
+/**
+ * 驗簽用的 Keycloak JWKS 來源（取代 Nimbus RemoteJWKSet）。
+ *   - 遇到未知 `kid` 時重新抓取，但只採用「在這次查找之後才開始」的抓取結果；
+ *     RemoteJWKSet 會沿用其他執行緒在金鑰輪替前就開始的抓取，剛輪替的新金鑰因此被誤判為不存在
+ *   - 同一時間只有一個抓取，且與前一次抓取至少相隔 `minRefreshInterval`；
+ *     期間遇到未知 `kid` 的請求共用下一次抓取，垃圾 `kid` 不會放大成對 Keycloak 的請求
+ *   - 抓取失敗時沿用舊的金鑰清單
+ */
+class RefreshingJwkSource implements JWKSource<SecurityContext> {
+
+    /**
+     * 取得 JWKS 內容
+     */
+    @FunctionalInterface
+    interface JwkSetLoader {
+        JWKSet load() throws KeySourceException;
+    }
+
+    private final JwkSetLoader loader;
+    private final long minRefreshIntervalNanos;
+
+    private volatile JWKSet jwkSet;
+    private long lastFetchStartedAt; // System.nanoTime()，只在 synchronized 內讀寫
+    private boolean fetchedOnce;
+
+    RefreshingJwkSource(JwkSetLoader loader, Duration minRefreshInterval) {
+        this.loader = loader;
+        this.minRefreshIntervalNanos = minRefreshInterval.toNanos();
+    }
+
+    /**
+     * 由 JWKS 端點載入
+     */
+    static RefreshingJwkSource fromJwkSetUri(String jwkSetUri, RestOperations restOperations, Duration minRefreshInterval) {
+        return new RefreshingJwkSource(() -> {
+            try {
+                String body = restOperations.getForObject(jwkSetUri, String.class);
+                if (body == null) {
+                    throw new KeySourceException("JWKS 回應為空");
+                }
+                return JWKSet.parse(body);
+            } catch (RestClientException | ParseException ex) {
+                throw new KeySourceException("無法取得 JWKS: " + ex.getMessage(), ex);
+            }
+        }, minRefreshInterval);
+    }
+
+    @Override
+    public List<JWK> get(JWKSelector jwkSelector, SecurityContext context) throws KeySourceException {
+        long lookupStartedAt = System.nanoTime();
+        JWKSet current = jwkSet;
+        if (current == null) {
+            current = refreshStartedAfter(lookupStartedAt);
+        }
+
+        List<JWK> matches = jwkSelector.select(current);
+        if (!matches.isEmpty()) {
+            return matches;
+        }
+        String keyId = firstKeyId(jwkSelector);
+        if (keyId == null || current.getKeyByKeyId(keyId) != null) {
+            return matches;
+        }
+        // 未知 kid（可能剛輪替）：等待一次在查找之後才開始的抓取
+        return jwkSelector.select(refreshStartedAfter(lookupStartedAt));
+    }
+
+    private synchronized JWKSet refreshStartedAfter(long lookupStartedAt) throws KeySourceException {
+        if (fetchedOnce && jwkSet != null && lastFetchStartedAt - lookupStartedAt >= 0) {
+            return jwkSet; // 其他執行緒已在查找之後抓取過，直接沿用
+        }
+        if (fetchedOnce) {
+            long waitNanos = lastFetchStartedAt + minRefreshIntervalNanos - System.nanoTime();
+            if (waitNanos > 0) {
+                try {
+                    TimeUnit.NANOSECONDS.sleep(waitNanos);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new KeySourceException("等待 JWKS 重新抓取時被中斷", e);
+                }
+            }
+        }
+
+        fetchedOnce = true;
+        lastFetchStartedAt = System.nanoTime();
+        try {
+            jwkSet = loader.load();
+        } catch (KeySourceException ex) {
+            if (jwkSet == null) {
+                throw ex;
+            }
+            // Keycloak 暫時無法連線：沿用舊清單
+        }
+        return jwkSet;
+    }
+
+    private static String firstKeyId(JWKSelector jwkSelector) {
+        Set<String> keyIds = jwkSelector.getMatcher().getKeyIDs();
+        if (keyIds == null) {
+            return null;
+        }
+        return keyIds.stream().filter(Objects::nonNull).findFirst().orElse(null);
+    }
+}
@@ -1,5 +1,18 @@
 package com.example.keycloak.security;
 
+import java.time.Clock;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.stream.Collectors;
+
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.actuate.autoconfigure.security.servlet.EndpointRequest;
+import org.springframework.boot.actuate.health.HealthEndpoint;
+import org.springframework.boot.actuate.metrics.MetricsEndpoint;
+import org.springframework.boot.web.client.RestTemplateBuilder;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.security.config.annotation.method.configuration.EnableMethodSecurity;
@@ -8,8 +21,12 @@ import org.springframework.security.config.annotation.web.configuration.EnableWe
 import org.springframework.security.web.SecurityFilterChain;
 import org.springframework.security.config.http.SessionCreationPolicy;
 import org.springframework.security.web.authentication.HttpStatusEntryPoint;
+import org.springframework.http.HttpMethod;
 import org.springframework.http.HttpStatus;
 import org.springframework.security.web.access.AccessDeniedHandler;
+import org.springframework.security.authentication.AuthenticationManagerResolver;
+import org.springframework.security.oauth2.server.resource.web.authentication.BearerTokenAuthenticationFilter;
+import org.springframework.security.web.util.matcher.RequestMatcher;
 import lombok.RequiredArgsConstructor;
 
 @Configuration
@@ -18,10 +35,12 @@ import lombok.RequiredArgsConstructor;
 @RequiredArgsConstructor
 public class SecurityConfig {
 
-    private final JwtAuthConverter jwtAuthConverter; // ✅ 確保 JwtAuthConverter 解析角色
+    // ✅ 依路徑選擇本地 JWT 驗證或 Keycloak Introspection（見 IntrospectionConfig）
+    private final AuthenticationManagerResolver<HttpServletRequest> bearerTokenAuthenticationManagerResolver;
 
     @Bean
-    public SecurityFilterChain securityFilterChain(HttpSecurity http) throws Exception {
+    public SecurityFilterChain securityFilterChain(HttpSecurity http,
+                                                   BearerTokenPrecheckFilter bearerTokenPrecheckFilter) throws Exception {
         http
             // 設定為無狀態 API（RESTful API）
             .sessionManagement(session -> session.sessionCreationPolicy(SessionCreationPolicy.STATELESS))
@@ -37,12 +56,20 @@ public class SecurityConfig {
                 .requestMatchers("/api/public").permitAll()  // 任何人可訪問
                 .requestMatchers("/api/user").hasAuthority("ROLE_API_USER")  // ✅ 確保 Keycloak "api-user" 角色能匹配 `ROLE_API_USER`
                 .requestMatchers("/api/admin").hasAuthority("ROLE_ADMIN")  // ✅ ADMIN 角色檢查
+                .requestMatchers(EndpointRequest.to(HealthEndpoint.class)).permitAll()  // ✅ liveness / readiness 探測不帶 Token
+                .requestMatchers(EndpointRequest.to(MetricsEndpoint.class)).hasAuthority("ROLE_ADMIN")  // ✅ 指標僅限 ADMIN
+                // ✅ 上傳附件在 Filter 層先檢查角色，未授權時不會解析 multipart 主體（與 @PreAuthorize 一致）
+                //    JwtAuthConverter 會將 Keycloak 角色轉為大寫：editor_access → `ROLE_EDITOR_ACCESS`
+                .requestMatchers(HttpMethod.POST, "/api/articles/*/upload").hasAnyRole("EDITOR_ACCESS", "ADMIN_ACCESS")
                 .anyRequest().authenticated() // 其他 API 需要身份驗證
             )
 
-            // OAuth 2.0 JWT 設定
-            .oauth2ResourceServer(oauth2 -> oauth2.jwt(jwt -> 
-                jwt.jwtAuthenticationConverter(jwtAuthConverter))  // ✅ 轉換 Keycloak 角色格式
+            // 驗簽前先擋下明顯無效的 Bearer Token
+            .addFilterBefore(bearerTokenPrecheckFilter, BearerTokenAuthenticationFilter.class)
+
+            // OAuth 2.0 Bearer Token 設定（JWT 由 JwtAuthConverter 轉換 Keycloak 角色格式）
+            .oauth2ResourceServer(oauth2 -> oauth2
+                .authenticationManagerResolver(bearerTokenAuthenticationManagerResolver)
             )
 
             // 自訂錯誤處理
@@ -54,6 +81,44 @@ public class SecurityConfig {
         return http.build();
     }
 
+    @Bean
+    public BearerTokenPrecheckFilter bearerTokenPrecheckFilter(
+            @Value("${spring.security.oauth2.resourceserver.jwt.issuer-uri:}") String issuer,
+            @Value("${spring.security.oauth2.resourceserver.jwt.jwk-set-uri}") String jwkSetUri,
+            @Value("${app.security.precheck.allowed-algorithms:RS256}") String[] allowedAlgorithms,
+            @Value("${app.security.precheck.max-header-length:8192}") int maxHeaderLength,
+            @Value("${app.security.precheck.clock-skew:60s}") Duration clockSkew,
+            @Value("${app.security.precheck.jwks-refresh-interval:30s}") Duration jwksRefreshInterval,
+            @Qualifier("introspectionRequestMatcher") RequestMatcher introspectionRequestMatcher,
+            RestTemplateBuilder restTemplateBuilder) {
+
+        JwkSetKeyIds knownKeyIds = JwkSetKeyIds.fromJwkSetUri(
+                jwkSetUri,
+                restTemplateBuilder.setConnectTimeout(Duration.ofSeconds(2)).setReadTimeout(Duration.ofSeconds(2)).build(),
+                jwksRefreshInterval);
+
+        return new BearerTokenPrecheckFilter(
+                issuer,
+                Arrays.stream(allowedAlgorithms).map(String::trim).collect(Collectors.toUnmodifiableSet()),
+                maxHeaderLength,
+                clockSkew,
+                knownKeyIds,
+                introspectionRequestMatcher, // Introspection 路徑允許 opaque token
+                Clock.systemUTC());
+    }
+
+    /**
+     * 只在 Security Filter Chain 內執行，不要被 Spring Boot 自動註冊成 Servlet Filter
+     */
+    @Bean
+    public FilterRegistrationBean<BearerTokenPrecheckFilter> bearerTokenPrecheckFilterRegistration(
+            BearerTokenPrecheckFilter bearerTokenPrecheckFilter) {
+        FilterRegistrationBean<BearerTokenPrecheckFilter> registration =
+                new FilterRegistrationBean<>(bearerTokenPrecheckFilter);
+        registration.setEnabled(false);
+        return registration;
+    }
+
     @Bean
     public AccessDeniedHandler accessDeniedHandler() {
         return (request, response, accessDeniedException) -> {
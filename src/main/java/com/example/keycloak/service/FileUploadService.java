@@ -43,8 +43,10 @@ public class FileUploadService {
         // 若目錄不存在就先建立
         Files.createDirectories(targetPath.getParent());
 
-        // 4. 寫入檔案
-        file.transferTo(targetPath.toFile());
+        // 4. 寫入檔案：multipart 已由容器暫存為檔案，transferTo 直接搬移（rename），不經過 heap
+        //    需使用絕對路徑，否則會相對於容器的暫存目錄
+        //    同時上傳數由 UploadAdmissionFilter 在讀取主體前控管
+        file.transferTo(targetPath.toAbsolutePath().toFile());
 
         // 5. 回傳最終檔名（實務可換成 http://domain/uploads/xxx 供前端顯示）
         return newFilename;
@@ -0,0 +1,48 @@
+package com.example.keycloak.service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+
+import org.springframework.web.multipart.MultipartFile;
+
+import software.amazon.awssdk.http.ContentStreamProvider;
+
+/**
+ * S3 上傳內容：直接串流容器暫存的上傳檔案，不整份載入 heap。
+ * SDK 重試時會再次呼叫 newStream()，每次都關閉前一個串流並從第一個位元組重新開始。
+ */
+class MultipartContentStreamProvider implements ContentStreamProvider, AutoCloseable {
+
+    private final MultipartFile file;
+    private InputStream current;
+
+    MultipartContentStreamProvider(MultipartFile file) {
+        this.file = file;
+    }
+
+    @Override
+    public synchronized InputStream newStream() {
+        close();
+        try {
+            current = file.getInputStream();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return current;
+    }
+
+    @Override
+    public synchronized void close() {
+        if (current == null) {
+            return;
+        }
+        try {
+            current.close();
+        } catch (IOException ignored) {
+            // 已完成或放棄上傳，關閉失敗不影響結果
+        } finally {
+            current = null;
+        }
+    }
+}
@@ -8,9 +8,10 @@ import software.amazon.awssdk.auth.credentials.StaticCredentialsProvider;
 import software.amazon.awssdk.core.sync.RequestBody;
 import software.amazon.awssdk.regions.Region;
 import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.S3ClientBuilder;
 import software.amazon.awssdk.services.s3.model.PutObjectRequest;
 
-import javax.annotation.PostConstruct;
+import jakarta.annotation.PostConstruct;
 import java.io.IOException;
 import java.net.URI;
 import java.nio.file.Paths;
@@ -43,6 +44,12 @@ public class S3UploadService {
     @Value("${cloud.aws.s3.endpoint:}")
     private String endpoint;
 
+    /**
+     * MinIO 或本地 S3 相容服務通常需使用 path-style（https://<endpoint>/<bucket>/<key>）
+     */
+    @Value("${cloud.aws.s3.path-style-access:false}")
+    private boolean pathStyleAccess;
+
     private S3Client s3Client;
 
     /**
@@ -54,7 +61,7 @@ public class S3UploadService {
         AwsBasicCredentials awsCreds = AwsBasicCredentials.create(accessKey, secretKey);
 
         // 生成 S3Client Builder
-        S3Client.Builder s3Builder = S3Client.builder()
+        S3ClientBuilder s3Builder = S3Client.builder()
                 .credentialsProvider(StaticCredentialsProvider.create(awsCreds))
                 .region(Region.of(region));
 
@@ -62,12 +69,14 @@ public class S3UploadService {
         if (endpoint != null && !endpoint.isEmpty()) {
             s3Builder.endpointOverride(URI.create(endpoint));
         }
+        s3Builder.forcePathStyle(pathStyleAccess);
 
         this.s3Client = s3Builder.build();
     }
 
     /**
      * 上傳單檔案至 S3 Bucket，並回傳存放檔案的公開 URL（或 key）。
+     * 經由 HTTP 上傳時，同時上傳數由 UploadAdmissionFilter 在讀取主體前控管。
      */
     public String uploadFile(MultipartFile file) throws IOException {
         // 1. 取出原始檔名以抓副檔名
@@ -88,7 +97,11 @@ public class S3UploadService {
                 .build();
 
         // 4. 執行上傳 (blocking)
-        s3Client.putObject(putObjectRequest, RequestBody.fromBytes(file.getBytes()));
+        //    直接串流容器暫存的檔案，不再以 getBytes() 整份載入 heap
+        String contentType = (file.getContentType() != null) ? file.getContentType() : "application/octet-stream";
+        try (MultipartContentStreamProvider content = new MultipartContentStreamProvider(file)) {
+            s3Client.putObject(putObjectRequest, RequestBody.fromContentProvider(content, file.getSize(), contentType));
+        }
 
         // 5. 回傳檔案的 URL 或純粹回傳 uniqueFileName
         // 若使用官方 AWS Endpoints，URL 一般為: https://{bucket}.s3.{region}.amazonaws.com/{key}
@@ -0,0 +1,13 @@
+package com.example.keycloak.service;
+
+import java.time.Duration;
+
+/**
+ * 同時上傳數已達上限且等待逾時，應回傳 503 讓客戶端稍後重試。
+ */
+public class UploadCapacityExceededException extends RuntimeException {
+
+    public UploadCapacityExceededException(Duration waited) {
+        super("同時上傳數已達上限，等待 " + waited.toMillis() + "ms 仍無可用額度");
+    }
+}
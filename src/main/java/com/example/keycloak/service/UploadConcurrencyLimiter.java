@@ -0,0 +1,104 @@
+package com.example.keycloak.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 同時進行中的上傳數上限（本地與 S3 上傳共用）。
+ *   - 每個上傳請求佔用一個 Permit（由 UploadAdmissionFilter 在讀取主體前取得）；額度用完時
+ *     新的上傳最多等待 `acquire-timeout`，逾時則拋出 UploadCapacityExceededException（回傳 503）
+ *   - 上傳內容由容器暫存為檔案、再以串流寫出，heap 用量與檔案大小無關；
+ *     限制同時上傳數即可讓容器接收主體與 SDK 傳送時的緩衝總量維持在可預期範圍
+ *   - 透過 Micrometer 提供進行中數量、等待時間與拒絕次數
+ */
+@Component
+public class UploadConcurrencyLimiter {
+
+    private final int maxConcurrent;
+    private final Duration acquireTimeout;
+
+    private final Semaphore permits;
+
+    private final Timer waitTimer;
+    private final Counter rejectedCounter;
+
+    public UploadConcurrencyLimiter(@Value("${app.upload.concurrency.max-concurrent:64}") int maxConcurrent,
+                                    @Value("${app.upload.concurrency.acquire-timeout:2s}") Duration acquireTimeout,
+                                    MeterRegistry meterRegistry) {
+        this.maxConcurrent = Math.max(1, maxConcurrent);
+        this.acquireTimeout = acquireTimeout;
+        this.permits = new Semaphore(this.maxConcurrent, true); // 公平排隊，避免大量上傳時部分請求一直搶不到
+
+        Gauge.builder("upload.concurrency.in.use", this, UploadConcurrencyLimiter::inUse)
+                .description("目前進行中的上傳數")
+                .register(meterRegistry);
+        Gauge.builder("upload.concurrency.limit", this, limiter -> limiter.maxConcurrent)
+                .description("同時上傳數上限")
+                .register(meterRegistry);
+        this.waitTimer = Timer.builder("upload.concurrency.wait")
+                .description("取得上傳額度的等待時間")
+                .register(meterRegistry);
+        this.rejectedCounter = Counter.builder("upload.concurrency.rejected")
+                .description("額度用完且等待逾時而被拒絕的上傳數")
+                .register(meterRegistry);
+    }
+
+    /**
+     * 取得一份上傳額度；額度用完時最多等待 `acquire-timeout`
+     *
+     * @return 使用完畢務必 close()（建議搭配 try-with-resources）
+     * @throws UploadCapacityExceededException 等待逾時
+     */
+    public Permit acquire() {
+        long start = System.nanoTime();
+        boolean acquired;
+        try {
+            acquired = permits.tryAcquire(acquireTimeout.toNanos(), TimeUnit.NANOSECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            acquired = false;
+        }
+        waitTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+
+        if (!acquired) {
+            rejectedCounter.increment();
+            throw new UploadCapacityExceededException(acquireTimeout);
+        }
+        return new Permit();
+    }
+
+    public int inUse() {
+        return maxConcurrent - permits.availablePermits();
+    }
+
+    public int limit() {
+        return maxConcurrent;
+    }
+
+    /**
+     * 借出的額度，close() 時歸還（重複呼叫只歸還一次）
+     */
+    public final class Permit implements AutoCloseable {
+
+        private boolean closed;
+
+        private Permit() {
+        }
+
+        @Override
+        public void close() {
+            if (!closed) {
+                closed = true;
+                permits.release();
+            }
+        }
+    }
+}
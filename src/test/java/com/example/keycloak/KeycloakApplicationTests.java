@@ -1,6 +1,7 @@
 package com.example.keycloak;
 
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 import static org.hamcrest.Matchers.containsString;
 
@@ -26,33 +27,23 @@ class KeycloakApplicationTests {
     }
 
     /**
-     * ✅ 測試公開 API 是否可訪問（無需授權）
+     * ❌ 未帶 Token 讀取文章應返回 401 Unauthorized
      */
     @Test
-    void shouldAllowAccessToPublicEndpoint() throws Exception {
-        mockMvc.perform(get("/api/public"))
-                .andExpect(status().isOk())
-                .andExpect(result -> containsString("Public API"));
-    }
-
-    /**
-     * ✅ 測試 /api/user 需要 USER 角色
-     */
-    @Test
-    @WithMockUser(username = "testuser", roles = "USER") // 模擬 USER 角色
-    void shouldAllowUserAccess() throws Exception {
-        mockMvc.perform(get("/api/user"))
-                .andExpect(status().isOk());
+    void shouldRejectAnonymousArticleRead() throws Exception {
+        mockMvc.perform(get("/api/articles/basic"))
+                .andExpect(status().isUnauthorized());
     }
 
     /**
-     * ✅ 測試 /api/admin 需要 ADMIN 角色
+     * ✅ 測試 /api/articles/basic 允許 BASIC_ACCESS 角色（JwtAuthConverter 轉換後的大寫角色）
      */
     @Test
-    @WithMockUser(username = "admin", roles = "ADMIN") // 模擬 ADMIN 角色
-    void shouldAllowAdminAccess() throws Exception {
-        mockMvc.perform(get("/api/admin"))
-                .andExpect(status().isOk());
+    @WithMockUser(username = "reader", roles = "BASIC_ACCESS") // 模擬 Keycloak basic_access 角色
+    void shouldAllowBasicReaderAccess() throws Exception {
+        mockMvc.perform(get("/api/articles/basic"))
+                .andExpect(status().isOk())
+                .andExpect(content().string(containsString("Free Article")));
     }
 
     /**
@@ -0,0 +1,39 @@
+package com.example.keycloak;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.aot.hint.MemberCategory;
+import org.springframework.aot.hint.RuntimeHints;
+import org.springframework.aot.hint.TypeReference;
+import org.springframework.aot.hint.predicate.RuntimeHintsPredicates;
+
+import com.example.keycloak.api.Article;
+
+/**
+ * ✅ native-image 執行期提示需涵蓋 Jackson 綁定與 AWS SDK HTTP client
+ */
+class KeycloakRuntimeHintsTests {
+
+    private final RuntimeHints hints = new RuntimeHints();
+
+    KeycloakRuntimeHintsTests() {
+        new KeycloakRuntimeHints().registerHints(hints, getClass().getClassLoader());
+    }
+
+    @Test
+    void shouldRegisterArticleForJacksonBinding() throws Exception {
+        assertThat(RuntimeHintsPredicates.reflection().onType(Article.class)
+                .withMemberCategory(MemberCategory.INVOKE_DECLARED_CONSTRUCTORS)).accepts(hints);
+        assertThat(RuntimeHintsPredicates.reflection().onMethod(Article.class.getMethod("getTitle"))).accepts(hints);
+    }
+
+    @Test
+    void shouldRegisterAwsSdkHttpService() {
+        assertThat(RuntimeHintsPredicates.reflection().onType(
+                TypeReference.of("software.amazon.awssdk.http.apache.ApacheSdkHttpService")))
+                .accepts(hints);
+        assertThat(RuntimeHintsPredicates.resource()
+                .forResource("META-INF/services/software.amazon.awssdk.http.SdkHttpService")).accepts(hints);
+    }
+}
@@ -0,0 +1,120 @@
+package com.example.keycloak.loadtest;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * 本地 S3 相容替身（path-style：`PUT /{bucket}/{key}`）。
+ * 支援 AWS SDK 在 HTTP 端點上使用的 `aws-chunked` 上傳格式，並以內容 MD5 回傳 ETag；
+ * 只保留物件大小與 ETag，長時間壓測也不會吃光記憶體。
+ */
+public class InMemoryS3Server implements AutoCloseable {
+
+    private final HttpServer server;
+    private final Map<String, StoredObject> objects = new ConcurrentHashMap<>();
+    private final AtomicLong storedBytes = new AtomicLong();
+
+    public InMemoryS3Server() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.createContext("/", this::handle);
+        server.setExecutor(Executors.newCachedThreadPool());
+        server.start();
+    }
+
+    public String endpoint() {
+        return "http://localhost:" + server.getAddress().getPort();
+    }
+
+    public int objectCount() {
+        return objects.size();
+    }
+
+    public long storedBytes() {
+        return storedBytes.get();
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        String path = exchange.getRequestURI().getPath();
+        if (!"PUT".equals(exchange.getRequestMethod())) {
+            exchange.sendResponseHeaders(405, -1);
+            exchange.close();
+            return;
+        }
+
+        byte[] content = readPayload(exchange);
+        String etag = "\"" + md5Hex(content) + "\"";
+        objects.put(path, new StoredObject(content.length, etag));
+        storedBytes.addAndGet(content.length);
+        exchange.getResponseHeaders().set("ETag", etag);
+        exchange.sendResponseHeaders(200, -1);
+        exchange.close();
+    }
+
+    private static byte[] readPayload(HttpExchange exchange) throws IOException {
+        try (InputStream in = exchange.getRequestBody()) {
+            String contentSha256 = exchange.getRequestHeaders().getFirst("x-amz-content-sha256");
+            String contentEncoding = exchange.getRequestHeaders().getFirst("Content-Encoding");
+            boolean awsChunked = (contentSha256 != null && contentSha256.startsWith("STREAMING-"))
+                    || (contentEncoding != null && contentEncoding.contains("aws-chunked"));
+            return awsChunked ? decodeAwsChunked(in) : in.readAllBytes();
+        }
+    }
+
+    /**
+     * 解析 `<hex-size>;chunk-signature=...\r\n<data>\r\n`，直到大小為 0 的結尾 chunk
+     */
+    private static byte[] decodeAwsChunked(InputStream in) throws IOException {
+        ByteArrayOutputStream content = new ByteArrayOutputStream();
+        while (true) {
+            String header = readLine(in);
+            int separator = header.indexOf(';');
+            int size = Integer.parseInt((separator >= 0) ? header.substring(0, separator) : header.trim(), 16);
+            if (size == 0) {
+                in.readAllBytes(); // 忽略 trailer
+                return content.toByteArray();
+            }
+            content.write(in.readNBytes(size));
+            readLine(in);
+        }
+    }
+
+    private static String readLine(InputStream in) throws IOException {
+        ByteArrayOutputStream line = new ByteArrayOutputStream();
+        int b;
+        while ((b = in.read()) != -1 && b != '\n') {
+            if (b != '\r') {
+                line.write(b);
+            }
+        }
+        return line.toString(StandardCharsets.US_ASCII);
+    }
+
+    private static String md5Hex(byte[] content) {
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("MD5").digest(content));
+        } catch (NoSuchAlgorithmException ex) {
+            throw new IllegalStateException(ex);
+        }
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+    }
+
+    private record StoredObject(long size, String etag) {
+    }
+}
@@ -0,0 +1,152 @@
+package com.example.keycloak.loadtest;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 固定並行數的封閉式壓測驅動：`concurrency` 個執行緒在 `duration` 內不斷執行同一個操作，
+ * 記錄每次的延遲與 HTTP 狀態碼，最後計算吞吐量與延遲百分位數。
+ */
+public class LoadDriver {
+
+    /**
+     * 單次操作，回傳 HTTP 狀態碼（非 HTTP 操作成功時回傳 200）
+     */
+    @FunctionalInterface
+    public interface Operation {
+        int execute(int worker, int iteration) throws Exception;
+    }
+
+    private final Duration warmup;
+
+    public LoadDriver(Duration warmup) {
+        this.warmup = warmup;
+    }
+
+    public WorkloadResult run(String name, int concurrency, Duration duration, Operation operation)
+            throws InterruptedException {
+        // 預熱：讓 JIT、連線池與 JWKS 快取就緒，不納入統計
+        execute(concurrency, warmup, operation, null);
+
+        Recorder recorder = new Recorder();
+        long start = System.nanoTime();
+        execute(concurrency, duration, operation, recorder);
+        return recorder.toResult(name, concurrency, Duration.ofNanos(System.nanoTime() - start));
+    }
+
+    private static void execute(int concurrency, Duration duration, Operation operation, Recorder recorder)
+            throws InterruptedException {
+        if (duration.isZero()) {
+            return;
+        }
+        ExecutorService executor = Executors.newFixedThreadPool(concurrency);
+        CountDownLatch done = new CountDownLatch(concurrency);
+        long deadline = System.nanoTime() + duration.toNanos();
+        for (int i = 0; i < concurrency; i++) {
+            int worker = i;
+            executor.execute(() -> {
+                try {
+                    int iteration = 0;
+                    while (System.nanoTime() < deadline) {
+                        long begin = System.nanoTime();
+                        int status;
+                        try {
+                            status = operation.execute(worker, iteration++);
+                        } catch (Exception ex) {
+                            status = -1; // 連線錯誤等例外
+                        }
+                        if (recorder != null) {
+                            recorder.record(System.nanoTime() - begin, status);
+                        }
+                    }
+                } finally {
+                    done.countDown();
+                }
+            });
+        }
+        done.await();
+        executor.shutdown();
+        executor.awaitTermination(10, TimeUnit.SECONDS);
+    }
+
+    /**
+     * 執行緒安全的延遲紀錄
+     */
+    private static final class Recorder {
+
+        private final AtomicInteger count = new AtomicInteger();
+        private final Map<Integer, LongAdder> statusCounts = new ConcurrentHashMap<>();
+        private long[] latencies = new long[1 << 16];
+
+        void record(long latencyNanos, int status) {
+            statusCounts.computeIfAbsent(status, key -> new LongAdder()).increment();
+            int index = count.getAndIncrement();
+            synchronized (this) {
+                if (index >= latencies.length) {
+                    latencies = Arrays.copyOf(latencies, Math.max(latencies.length * 2, index + 1));
+                }
+                latencies[index] = latencyNanos;
+            }
+        }
+
+        synchronized WorkloadResult toResult(String name, int concurrency, Duration elapsed) {
+            long[] sorted = Arrays.copyOf(latencies, count.get());
+            Arrays.sort(sorted);
+            Map<Integer, Long> statuses = new TreeMap<>();
+            statusCounts.forEach((status, adder) -> statuses.put(status, adder.sum()));
+            return new WorkloadResult(name, concurrency, sorted.length, elapsed, statuses,
+                    percentile(sorted, 50), percentile(sorted, 90), percentile(sorted, 99),
+                    sorted.length == 0 ? 0 : sorted[sorted.length - 1]);
+        }
+
+        private static long percentile(long[] sorted, double percentile) {
+            if (sorted.length == 0) {
+                return 0;
+            }
+            int index = (int) Math.ceil(percentile / 100.0 * sorted.length) - 1;
+            return sorted[Math.max(0, Math.min(index, sorted.length - 1))];
+        }
+    }
+
+    /**
+     * 單一 workload 的統計結果（延遲單位：奈秒）
+     */
+    public record WorkloadResult(String name,
+                                 int concurrency,
+                                 long requests,
+                                 Duration elapsed,
+                                 Map<Integer, Long> statusCounts,
+                                 long p50Nanos,
+                                 long p90Nanos,
+                                 long p99Nanos,
+                                 long maxNanos) {
+
+        public double throughput() {
+            return requests / (elapsed.toNanos() / 1_000_000_000.0);
+        }
+
+        public long count(int status) {
+            return statusCounts.getOrDefault(status, 0L);
+        }
+
+        public String toReportLine() {
+            return String.format("%-32s %4d %9d %10.1f %9.2f %9.2f %9.2f %9.2f  %s",
+                    name, concurrency, requests, throughput(),
+                    p50Nanos / 1e6, p90Nanos / 1e6, p99Nanos / 1e6, maxNanos / 1e6, statusCounts);
+        }
+
+        public static String reportHeader() {
+            return String.format("%-32s %4s %9s %10s %9s %9s %9s %9s  %s",
+                    "workload", "vus", "requests", "req/s", "p50(ms)", "p90(ms)", "p99(ms)", "max(ms)", "status");
+        }
+    }
+}
@@ -0,0 +1,204 @@
+package com.example.keycloak.loadtest;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+
+import com.nimbusds.jose.JOSEException;
+import com.nimbusds.jose.JOSEObjectType;
+import com.nimbusds.jose.JWSAlgorithm;
+import com.nimbusds.jose.JWSHeader;
+import com.nimbusds.jose.crypto.RSASSASigner;
+import com.nimbusds.jose.jwk.JWKSet;
+import com.nimbusds.jose.jwk.RSAKey;
+import com.nimbusds.jose.jwk.gen.RSAKeyGenerator;
+import com.nimbusds.jose.util.JSONObjectUtils;
+import com.nimbusds.jwt.JWTClaimsSet;
+import com.nimbusds.jwt.SignedJWT;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * 本地 Keycloak 替身（news-portal realm）：
+ *   - `/.well-known/openid-configuration`、JWKS、Token Introspection 端點
+ *   - 簽發與 Keycloak 相同結構的 Access Token（`realm_access`、`resource_access.news-api`）
+ *   - 支援金鑰輪替：新金鑰立即用於簽章，舊金鑰仍保留在 JWKS 內（與 Keycloak passive key 相同）
+ */
+public class MockKeycloakIssuer implements AutoCloseable {
+
+    private static final String REALM_PATH = "/realms/news-portal";
+    private static final String CLIENT_ID = "news-api";
+
+    private final HttpServer server;
+    private final List<RSAKey> publishedKeys = new ArrayList<>();
+    private final Set<String> revokedTokenIds = ConcurrentHashMap.newKeySet();
+    private final Map<String, JWTClaimsSet> issuedTokens = new ConcurrentHashMap<>();
+
+    private volatile SigningKey signingKey;
+    private volatile String jwkSetJson;
+
+    public MockKeycloakIssuer() throws IOException {
+        rotateKey();
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.createContext(REALM_PATH + "/.well-known/openid-configuration", this::handleDiscovery);
+        server.createContext(REALM_PATH + "/protocol/openid-connect/certs", this::handleJwkSet);
+        server.createContext(REALM_PATH + "/protocol/openid-connect/token/introspect", this::handleIntrospection);
+        server.setExecutor(Executors.newCachedThreadPool());
+        server.start();
+    }
+
+    public String issuerUri() {
+        return "http://localhost:" + server.getAddress().getPort() + REALM_PATH;
+    }
+
+    public String jwkSetUri() {
+        return issuerUri() + "/protocol/openid-connect/certs";
+    }
+
+    public String introspectionUri() {
+        return issuerUri() + "/protocol/openid-connect/token/introspect";
+    }
+
+    public String currentKeyId() {
+        return signingKey.key().getKeyID();
+    }
+
+    /**
+     * 產生新的簽章金鑰；舊金鑰留在 JWKS 內，已簽發的 Token 仍可驗證
+     */
+    public final synchronized void rotateKey() {
+        try {
+            RSAKey key = new RSAKeyGenerator(2048)
+                    .keyID(UUID.randomUUID().toString())
+                    .algorithm(JWSAlgorithm.RS256)
+                    .generate();
+            publishedKeys.add(key);
+            signingKey = new SigningKey(key, new RSASSASigner(key));
+            jwkSetJson = new JWKSet(new ArrayList<>(publishedKeys)).toPublicJWKSet().toString();
+        } catch (JOSEException ex) {
+            throw new IllegalStateException("無法產生 RSA 金鑰", ex);
+        }
+    }
+
+    /**
+     * 簽發 Keycloak 格式的 Access Token
+     *
+     * @param username   preferred_username / sub
+     * @param realmRoles `realm_access.roles`
+     * @param apiRoles   `resource_access.news-api.roles`
+     * @param lifetime   有效時間
+     */
+    public String mintToken(String username, List<String> realmRoles, List<String> apiRoles, Duration lifetime) {
+        Instant now = Instant.now();
+        JWTClaimsSet claims = new JWTClaimsSet.Builder()
+                .jwtID(UUID.randomUUID().toString())
+                .issuer(issuerUri())
+                .subject(UUID.nameUUIDFromBytes(username.getBytes(StandardCharsets.UTF_8)).toString())
+                .audience(List.of(CLIENT_ID, "account"))
+                .issueTime(Date.from(now))
+                .expirationTime(Date.from(now.plus(lifetime)))
+                .claim("typ", "Bearer")
+                .claim("azp", "news-portal-frontend")
+                .claim("scope", "openid profile email")
+                .claim("preferred_username", username)
+                .claim("realm_access", Map.of("roles", realmRoles))
+                .claim("resource_access", Map.of(CLIENT_ID, Map.of("roles", apiRoles)))
+                .build();
+
+        SigningKey current = signingKey;
+        SignedJWT jwt = new SignedJWT(
+                new JWSHeader.Builder(JWSAlgorithm.RS256).keyID(current.key().getKeyID()).type(JOSEObjectType.JWT).build(),
+                claims);
+        try {
+            jwt.sign(current.signer());
+        } catch (JOSEException ex) {
+            throw new IllegalStateException("無法簽署 Token", ex);
+        }
+        String token = jwt.serialize();
+        issuedTokens.put(token, claims);
+        return token;
+    }
+
+    /**
+     * 撤銷 Token：Introspection 之後回傳 `active=false`
+     */
+    public void revoke(String token) {
+        JWTClaimsSet claims = issuedTokens.get(token);
+        if (claims != null) {
+            revokedTokenIds.add(claims.getJWTID());
+        }
+    }
+
+    private void handleDiscovery(HttpExchange exchange) throws IOException {
+        String body = """
+                {"issuer":"%1$s",
+                 "jwks_uri":"%1$s/protocol/openid-connect/certs",
+                 "introspection_endpoint":"%1$s/protocol/openid-connect/token/introspect",
+                 "token_endpoint":"%1$s/protocol/openid-connect/token",
+                 "authorization_endpoint":"%1$s/protocol/openid-connect/auth",
+                 "subject_types_supported":["public"],
+                 "id_token_signing_alg_values_supported":["RS256"],
+                 "response_types_supported":["code"]}""".formatted(issuerUri());
+        writeJson(exchange, 200, body);
+    }
+
+    private void handleJwkSet(HttpExchange exchange) throws IOException {
+        writeJson(exchange, 200, jwkSetJson);
+    }
+
+    private void handleIntrospection(HttpExchange exchange) throws IOException {
+        String form = new String(exchange.getRequestBody().readAllBytes(), StandardCharsets.UTF_8);
+        String token = null;
+        for (String pair : form.split("&")) {
+            int eq = pair.indexOf('=');
+            if (eq > 0 && pair.substring(0, eq).equals("token")) {
+                token = URLDecoder.decode(pair.substring(eq + 1), StandardCharsets.UTF_8);
+            }
+        }
+
+        JWTClaimsSet claims = (token != null) ? issuedTokens.get(token) : null;
+        boolean active = claims != null
+                && !revokedTokenIds.contains(claims.getJWTID())
+                && claims.getExpirationTime().toInstant().isAfter(Instant.now());
+        if (!active) {
+            writeJson(exchange, 200, "{\"active\":false}");
+            return;
+        }
+
+        Map<String, Object> response = new LinkedHashMap<>(claims.toJSONObject());
+        response.put("active", true);
+        response.put("client_id", CLIENT_ID);
+        response.put("token_type", "Bearer");
+        writeJson(exchange, 200, JSONObjectUtils.toJSONString(response));
+    }
+
+    private static void writeJson(HttpExchange exchange, int status, String json) throws IOException {
+        byte[] body = json.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/json");
+        exchange.sendResponseHeaders(status, body.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(body);
+        }
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+    }
+
+    private record SigningKey(RSAKey key, RSASSASigner signer) {
+    }
+}
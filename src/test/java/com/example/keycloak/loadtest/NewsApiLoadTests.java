@@ -0,0 +1,372 @@
+package com.example.keycloak.loadtest;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import com.example.keycloak.loadtest.LoadDriver.WorkloadResult;
+import com.example.keycloak.service.S3UploadService;
+
+/**
+ * ⚡ 本地壓測：不需要網路或真正的 Keycloak / S3。
+ *   - MockKeycloakIssuer 提供 JWKS 並簽發 Keycloak 格式的 Token
+ *   - InMemoryS3Server 作為 S3 相容替身
+ *   - 上傳端點（檔案上傳與文章附件上傳）開啟 Token Introspection，其餘讀取走本地 JWT
+ * 執行方式：`./mvnw test -Pload-test`，可用
+ * `-Dloadtest.concurrency=`、`-Dloadtest.duration=`、`-Dloadtest.warmup=` 調整。
+ */
+@Tag("load")
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+class NewsApiLoadTests {
+
+    private static final MockKeycloakIssuer ISSUER;
+    private static final InMemoryS3Server S3;
+    private static final Path UPLOAD_DIR;
+
+    private static final int CONCURRENCY = Integer.getInteger("loadtest.concurrency", 16);
+    private static final Duration DURATION = Duration.parse("PT" + System.getProperty("loadtest.duration", "10s"));
+    private static final Duration WARMUP = Duration.parse("PT" + System.getProperty("loadtest.warmup", "3s"));
+    private static final Duration INTROSPECTION_CACHE_TTL = Duration.ofSeconds(1);
+
+    private static final List<WorkloadResult> RESULTS = new ArrayList<>();
+
+    static {
+        try {
+            ISSUER = new MockKeycloakIssuer();
+            S3 = new InMemoryS3Server();
+            UPLOAD_DIR = Files.createTempDirectory("loadtest-uploads");
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+
+    @DynamicPropertySource
+    static void localInfrastructure(DynamicPropertyRegistry registry) {
+        registry.add("spring.security.oauth2.resourceserver.jwt.issuer-uri", ISSUER::issuerUri);
+        registry.add("spring.security.oauth2.resourceserver.jwt.jwk-set-uri", ISSUER::jwkSetUri);
+        registry.add("app.security.introspection.enabled", () -> "true");
+        registry.add("app.security.introspection.introspection-uri", ISSUER::introspectionUri);
+        registry.add("app.security.introspection.client-secret", () -> "loadtest-secret");
+        registry.add("app.security.introspection.cache-ttl", INTROSPECTION_CACHE_TTL::toString);
+        registry.add("app.upload.directory", UPLOAD_DIR::toString);
+        registry.add("cloud.aws.s3.endpoint", S3::endpoint);
+        registry.add("cloud.aws.s3.path-style-access", () -> "true");
+        registry.add("spring.servlet.multipart.max-file-size", () -> "16MB");
+        registry.add("spring.servlet.multipart.max-request-size", () -> "64MB");
+    }
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private S3UploadService s3UploadService;
+
+    private final HttpClient httpClient = HttpClient.newBuilder()
+            .version(HttpClient.Version.HTTP_1_1)
+            .connectTimeout(Duration.ofSeconds(5))
+            .build();
+
+    private final LoadDriver driver = new LoadDriver(WARMUP);
+
+    @AfterAll
+    static void report() {
+        System.out.println();
+        System.out.println(WorkloadResult.reportHeader());
+        RESULTS.forEach(result -> System.out.println(result.toReportLine()));
+        System.out.println();
+        ISSUER.close();
+        S3.close();
+    }
+
+    private static synchronized void collect(WorkloadResult result) {
+        RESULTS.add(result);
+    }
+
+    /**
+     * 不同角色的讀者混合讀取文章：每個「角色 × 路徑」組合都必須得到預期的狀態碼
+     */
+    @Test
+    void mixedArticleReadsByRole() throws Exception {
+        String[] paths = {"/api/articles/basic", "/api/articles/premium", "/api/articles/all/1", "/api/articles/all/2"};
+        // 預期狀態碼，順序與 paths 相同
+        Map<String, int[]> expectedByToken = Map.of(
+                token("reader", List.of("basic_access"), List.of()), new int[] {200, 403, 200, 403},
+                token("subscriber", List.of("basic_access", "premium_access"), List.of()), new int[] {200, 200, 200, 200},
+                token("api-client", List.of(), List.of("basic_access")), new int[] {200, 403, 200, 403});
+        List<String> tokens = List.copyOf(expectedByToken.keySet());
+        AtomicInteger unexpected = new AtomicInteger();
+
+        WorkloadResult result = driver.run("article reads (mixed roles)", CONCURRENCY, DURATION, (worker, i) -> {
+            String token = tokens.get((worker + i) % tokens.size());
+            int path = i % paths.length;
+            int status = get(paths[path], token);
+            if (status != expectedByToken.get(token)[path]) {
+                unexpected.incrementAndGet();
+            }
+            return status;
+        });
+        collect(result);
+
+        assertThat(result.requests()).isPositive();
+        assertThat(unexpected).hasValue(0);
+        assertThat(result.count(200)).isGreaterThan(result.count(403)); // 8 / 12 的組合應為 200
+    }
+
+    /**
+     * Editor 上傳文章附件（Filter 層角色檢查 + Introspection）
+     */
+    @Test
+    void articleAttachmentUploads() throws Exception {
+        String token = token("editor", List.of("editor_access"), List.of());
+        byte[] content = randomBytes(64 * 1024);
+
+        WorkloadResult result = driver.run("article attachment 64KB", CONCURRENCY, DURATION, (worker, i) -> {
+            purgeUploads(worker, i);
+            return postMultipart("/api/articles/1/upload", token, "file", List.of(content));
+        });
+        collect(result);
+
+        assertThat(result.requests()).isPositive();
+        assertThat(result.count(200)).isEqualTo(result.requests());
+    }
+
+    /**
+     * Introspection 模式：上傳途中撤銷其中一個 Token，快取過期後該 Token 必須被拒絕（401），
+     * 另一個 Token 不受影響
+     */
+    @Test
+    void introspectionRevocationDuringUploads() throws Exception {
+        String kept = token("editor", List.of("editor_access"), List.of());
+        String revoked = token("editor-2", List.of("editor_access"), List.of());
+        byte[] content = randomBytes(16 * 1024);
+        long revokeAt = System.nanoTime() + WARMUP.toNanos() + DURATION.toNanos() / 2;
+        // 撤銷後需等快取過期才會生效，再留一點誤差
+        long enforcedAt = revokeAt + INTROSPECTION_CACHE_TTL.toNanos() + Duration.ofMillis(500).toNanos();
+        AtomicInteger unexpected = new AtomicInteger();
+        AtomicInteger rejectedAfterRevocation = new AtomicInteger();
+
+        WorkloadResult result = driver.run("upload (introspect, revoke)", CONCURRENCY, DURATION, (worker, i) -> {
+            long sentAt = System.nanoTime();
+            if (sentAt >= revokeAt) {
+                ISSUER.revoke(revoked); // 重複撤銷不影響結果
+            }
+            boolean useRevoked = (worker + i) % 2 == 0;
+            purgeUploads(worker, i);
+            int status = postMultipart("/api/files/upload", useRevoked ? revoked : kept, "file", List.of(content));
+
+            if (!useRevoked || sentAt < revokeAt) {
+                if (status != 200) {
+                    unexpected.incrementAndGet();
+                }
+            } else if (sentAt >= enforcedAt) {
+                if (status == 401) {
+                    rejectedAfterRevocation.incrementAndGet();
+                } else {
+                    unexpected.incrementAndGet();
+                }
+            }
+            return status;
+        });
+        collect(result);
+
+        assertThat(rejectedAfterRevocation.get()).isPositive();
+        assertThat(unexpected).hasValue(0);
+    }
+
+    /**
+     * 不同大小的單檔上傳
+     */
+    @Test
+    void singleUploadsOfVariousSizes() throws Exception {
+        String token = token("editor", List.of("editor_access"), List.of());
+        for (int size : new int[] {1024, 256 * 1024, 4 * 1024 * 1024}) {
+            byte[] content = randomBytes(size);
+            WorkloadResult result = driver.run("single upload " + humanSize(size), CONCURRENCY, DURATION, (worker, i) -> {
+                purgeUploads(worker, i);
+                return postMultipart("/api/files/upload", token, "file", List.of(content));
+            });
+            collect(result);
+
+            assertThat(result.count(200)).isPositive();
+        }
+    }
+
+    /**
+     * 一次上傳多個檔案
+     */
+    @Test
+    void batchUploads() throws Exception {
+        String token = token("editor", List.of("editor_access"), List.of());
+        List<byte[]> files = List.of(randomBytes(64 * 1024), randomBytes(64 * 1024), randomBytes(64 * 1024),
+                randomBytes(64 * 1024), randomBytes(64 * 1024));
+
+        WorkloadResult result = driver.run("batch upload 5x64KB", CONCURRENCY, DURATION, (worker, i) -> {
+            purgeUploads(worker, i);
+            return postMultipart("/api/files/upload/multiple", token, "files", files);
+        });
+        collect(result);
+
+        assertThat(result.count(200)).isPositive();
+    }
+
+    /**
+     * 經由 S3UploadService 上傳至 S3 相容替身
+     */
+    @Test
+    void s3Uploads() throws Exception {
+        byte[] content = randomBytes(256 * 1024);
+
+        WorkloadResult result = driver.run("S3 upload 256KB", CONCURRENCY, DURATION, (worker, i) -> {
+            s3UploadService.uploadFile(new MockMultipartFile("file", "image.png", "image/png", content));
+            return 200;
+        });
+        collect(result);
+
+        assertThat(result.count(-1)).isZero();
+        assertThat(S3.objectCount()).isPositive();
+    }
+
+    /**
+     * 讀取過程中 Keycloak 輪替簽章金鑰：新 Token 使用新的 kid。
+     * 同時有一半的流量是未知 kid 的垃圾 Token，持續佔用 JWKS 重新抓取的間隔（使用正式設定 30s）。
+     */
+    @Test
+    void keyRotationDuringReads() throws Exception {
+        String beforeRotation = token("reader", List.of("basic_access"), List.of());
+        String previousKeyId = ISSUER.currentKeyId();
+        long rotateAt = System.nanoTime() + WARMUP.toNanos() + DURATION.toNanos() / 2;
+        String[] currentToken = {beforeRotation};
+        AtomicInteger validRejected = new AtomicInteger();
+        AtomicInteger junkAccepted = new AtomicInteger();
+
+        WorkloadResult result = driver.run("reads (rotation + junk kid)", CONCURRENCY, DURATION, (worker, i) -> {
+            if (worker % 2 == 1) {
+                // 垃圾流量：隨機 kid，一半宣稱很久以前簽發、一半宣稱剛簽發
+                Instant issuedAt = (i % 2 == 0) ? Instant.now().minus(Duration.ofHours(1)) : Instant.now();
+                int status = get("/api/articles/all/1", junkToken(issuedAt));
+                if (status != 401) {
+                    junkAccepted.incrementAndGet();
+                }
+                return status;
+            }
+            if (System.nanoTime() >= rotateAt) {
+                synchronized (currentToken) {
+                    if (ISSUER.currentKeyId().equals(previousKeyId)) {
+                        ISSUER.rotateKey();
+                        currentToken[0] = token("reader", List.of("basic_access"), List.of());
+                    }
+                }
+            }
+            int status = get("/api/articles/all/1", currentToken[0]);
+            if (status != 200) {
+                validRejected.incrementAndGet();
+            }
+            return status;
+        });
+        collect(result);
+
+        assertThat(ISSUER.currentKeyId()).isNotEqualTo(previousKeyId);
+        assertThat(result.count(-1) + result.count(500)).isZero();
+        assertThat(validRejected).hasValue(0); // 新 kid 不應被誤擋
+        assertThat(junkAccepted).hasValue(0);
+    }
+
+    private static String token(String username, List<String> realmRoles, List<String> apiRoles) {
+        return ISSUER.mintToken(username, realmRoles, apiRoles, Duration.ofHours(1));
+    }
+
+    /**
+     * 未知 kid、簽章無效但格式正確的 Token
+     */
+    private static String junkToken(Instant issuedAt) {
+        Base64.Encoder encoder = Base64.getUrlEncoder().withoutPadding();
+        String header = "{\"alg\":\"RS256\",\"typ\":\"JWT\",\"kid\":\"" + UUID.randomUUID() + "\"}";
+        String payload = "{\"iss\":\"" + ISSUER.issuerUri() + "\",\"sub\":\"junk\",\"iat\":" + issuedAt.getEpochSecond()
+                + ",\"exp\":" + issuedAt.plus(Duration.ofHours(2)).getEpochSecond() + "}";
+        return encoder.encodeToString(header.getBytes(StandardCharsets.UTF_8)) + "."
+                + encoder.encodeToString(payload.getBytes(StandardCharsets.UTF_8)) + "."
+                + encoder.encodeToString(randomBytes(256));
+    }
+
+    private int get(String path, String token) throws IOException, InterruptedException {
+        HttpRequest request = HttpRequest.newBuilder(URI.create("http://localhost:" + port + path))
+                .header("Authorization", "Bearer " + token)
+                .GET()
+                .build();
+        return httpClient.send(request, HttpResponse.BodyHandlers.discarding()).statusCode();
+    }
+
+    private int postMultipart(String path, String token, String field, List<byte[]> files)
+            throws IOException, InterruptedException {
+        String boundary = "----loadtest" + UUID.randomUUID();
+        ByteArrayOutputStream body = new ByteArrayOutputStream();
+        for (int i = 0; i < files.size(); i++) {
+            body.write(("--" + boundary + "\r\n"
+                    + "Content-Disposition: form-data; name=\"" + field + "\"; filename=\"file-" + i + ".bin\"\r\n"
+                    + "Content-Type: application/octet-stream\r\n\r\n").getBytes(StandardCharsets.UTF_8));
+            body.write(files.get(i));
+            body.write("\r\n".getBytes(StandardCharsets.UTF_8));
+        }
+        body.write(("--" + boundary + "--\r\n").getBytes(StandardCharsets.UTF_8));
+
+        HttpRequest request = HttpRequest.newBuilder(URI.create("http://localhost:" + port + path))
+                .header("Authorization", "Bearer " + token)
+                .header("Content-Type", "multipart/form-data; boundary=" + boundary)
+                .POST(HttpRequest.BodyPublishers.ofByteArray(body.toByteArray()))
+                .build();
+        return httpClient.send(request, HttpResponse.BodyHandlers.discarding()).statusCode();
+    }
+
+    /**
+     * 由第一個 worker 定期清掉已上傳的檔案，避免長時間壓測塞滿磁碟
+     */
+    private static void purgeUploads(int worker, int iteration) throws IOException {
+        if (worker != 0 || iteration % 32 != 0) {
+            return;
+        }
+        try (Stream<Path> files = Files.list(UPLOAD_DIR)) {
+            for (Path file : (Iterable<Path>) files::iterator) {
+                Files.deleteIfExists(file);
+            }
+        }
+    }
+
+    private static byte[] randomBytes(int size) {
+        byte[] bytes = new byte[size];
+        ThreadLocalRandom.current().nextBytes(bytes);
+        return bytes;
+    }
+
+    private static String humanSize(int bytes) {
+        return (bytes >= 1024 * 1024) ? (bytes / (1024 * 1024)) + "MB" : (bytes / 1024) + "KB";
+    }
+}
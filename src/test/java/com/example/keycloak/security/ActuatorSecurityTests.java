@@ -0,0 +1,52 @@
+package com.example.keycloak.security;
+
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.jwt;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.test.web.servlet.MockMvc;
+
+/**
+ * Actuator：metrics 僅限 ADMIN 角色，health 開放給探測
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+class ActuatorSecurityTests {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    /**
+     * ✅ liveness / readiness 探測不帶 Token 也能讀取 health
+     */
+    @Test
+    void anonymousProbesCanReadHealth() throws Exception {
+        mockMvc.perform(get("/actuator/health"))
+                .andExpect(status().isOk());
+    }
+
+    /**
+     * ✅ ADMIN 可讀取上傳額度指標
+     */
+    @Test
+    void adminCanReadMetrics() throws Exception {
+        mockMvc.perform(get("/actuator/metrics/upload.concurrency.in.use")
+                        .with(jwt().authorities(new SimpleGrantedAuthority("ROLE_ADMIN"))))
+                .andExpect(status().isOk());
+    }
+
+    /**
+     * ❌ 一般使用者持有有效 Token 也不能讀取指標
+     */
+    @Test
+    void otherUsersCannotReadMetrics() throws Exception {
+        mockMvc.perform(get("/actuator/metrics")
+                        .with(jwt().authorities(new SimpleGrantedAuthority("ROLE_BASIC_ACCESS"))))
+                .andExpect(status().isForbidden());
+    }
+}
@@ -0,0 +1,165 @@
+package com.example.keycloak.security;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.jwt;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.multipart;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
+import org.springframework.test.web.servlet.request.RequestPostProcessor;
+
+import com.example.keycloak.service.FileUploadService;
+import com.example.keycloak.service.UploadConcurrencyLimiter;
+
+/**
+ * 文章附件上傳：Filter 層依 JwtAuthConverter 產生的角色授權，並在讀取主體前取得上傳額度
+ */
+@SpringBootTest(properties = {
+        // 額度只有一份，方便重現額度用完與多檔共用額度
+        "app.upload.concurrency.max-concurrent=1",
+        "app.upload.concurrency.acquire-timeout=50ms"
+})
+@AutoConfigureMockMvc
+class ArticleUploadAuthorizationTests {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private JwtAuthConverter jwtAuthConverter;
+
+    @Autowired
+    private UploadConcurrencyLimiter uploadConcurrencyLimiter;
+
+    @MockBean
+    private FileUploadService fileUploadService;
+
+    private final MockMultipartFile file = new MockMultipartFile("file", "cover.png", "image/png", new byte[] {1, 2, 3});
+
+    /**
+     * Keycloak 格式的 Access Token，角色經由實際的 JwtAuthConverter 轉換
+     */
+    private RequestPostProcessor keycloakUser(List<String> realmRoles, List<String> apiRoles) {
+        return jwt()
+                .jwt(token -> token
+                        .claim("preferred_username", "tester")
+                        .claim("realm_access", Map.of("roles", realmRoles))
+                        .claim("resource_access", Map.of("news-api", Map.of("roles", apiRoles))))
+                .authorities(token -> jwtAuthConverter.convert(token).getAuthorities());
+    }
+
+    /**
+     * ✅ Editor 可以上傳附件
+     */
+    @Test
+    void editorCanUploadAttachment() throws Exception {
+        given(fileUploadService.uploadFile(any())).willReturn("cover-1.png");
+
+        mockMvc.perform(multipart("/api/articles/1/upload").file(file)
+                        .with(keycloakUser(List.of("editor_access"), List.of())))
+                .andExpect(status().isOk());
+    }
+
+    /**
+     * ✅ news-api client role 的 Admin 也可以上傳
+     */
+    @Test
+    void adminClientRoleCanUploadAttachment() throws Exception {
+        given(fileUploadService.uploadFile(any())).willReturn("cover-1.png");
+
+        mockMvc.perform(multipart("/api/articles/1/upload").file(file)
+                        .with(keycloakUser(List.of(), List.of("admin_access"))))
+                .andExpect(status().isOk());
+    }
+
+    /**
+     * ❌ 上傳額度用完：在讀取主體前回傳 503 並附上 Retry-After，請求不會進入 DispatcherServlet
+     */
+    @Test
+    void uploadRejectedBeforeMultipartParsingWhenLimitReached() throws Exception {
+        try (UploadConcurrencyLimiter.Permit held = uploadConcurrencyLimiter.acquire()) {
+            MvcResult result = mockMvc.perform(multipart("/api/articles/1/upload").file(file)
+                            .with(keycloakUser(List.of("editor_access"), List.of())))
+                    .andExpect(status().isServiceUnavailable())
+                    .andExpect(header().string("Retry-After", "1"))
+                    .andReturn();
+            assertThat(result.getHandler()).isNull();
+
+            mockMvc.perform(multipart("/api/files/upload").file(file)
+                            .with(keycloakUser(List.of("editor_access"), List.of())))
+                    .andExpect(status().isServiceUnavailable());
+
+            // 未授權的請求先被 Security 拒絕，不會等待或佔用額度
+            mockMvc.perform(multipart("/api/articles/1/upload").file(file)
+                            .with(keycloakUser(List.of("basic_access"), List.of())))
+                    .andExpect(status().isForbidden());
+        }
+
+        verifyNoInteractions(fileUploadService);
+    }
+
+    /**
+     * ✅ 額度在整個請求期間持有，多檔上傳只佔一份
+     */
+    @Test
+    void multipleFilesShareOnePermitHeldForWholeRequest() throws Exception {
+        given(fileUploadService.uploadFile(any())).willAnswer(invocation -> {
+            assertThat(uploadConcurrencyLimiter.inUse()).isEqualTo(1);
+            return "saved.png";
+        });
+
+        mockMvc.perform(multipart("/api/files/upload/multiple")
+                        .file(new MockMultipartFile("files", "a.png", "image/png", new byte[] {1}))
+                        .file(new MockMultipartFile("files", "b.png", "image/png", new byte[] {2}))
+                        .file(new MockMultipartFile("files", "c.png", "image/png", new byte[] {3}))
+                        .with(keycloakUser(List.of("editor_access"), List.of())))
+                .andExpect(status().isOk());
+
+        verify(fileUploadService, times(3)).uploadFile(any());
+        assertThat(uploadConcurrencyLimiter.inUse()).isZero();
+    }
+
+    /**
+     * ❌ 一般讀者在 Filter 層即被拒絕：請求沒有進入 DispatcherServlet，multipart 主體不會被解析
+     */
+    @Test
+    void readerIsRejectedBeforeMultipartParsing() throws Exception {
+        MvcResult result = mockMvc.perform(multipart("/api/articles/1/upload").file(file)
+                        .with(keycloakUser(List.of("basic_access", "premium_access"), List.of())))
+                .andExpect(status().isForbidden())
+                .andReturn();
+
+        assertThat(result.getHandler()).isNull();
+        verifyNoInteractions(fileUploadService);
+    }
+
+    /**
+     * ✅ 對照組：同一個讀者讀取文章會進入 DispatcherServlet（有 handler）
+     */
+    @Test
+    void readerRequestsReachDispatcherServletOnReadableEndpoints() throws Exception {
+        MvcResult result = mockMvc.perform(MockMvcRequestBuilders.get("/api/articles/all/1")
+                        .with(keycloakUser(List.of("basic_access"), List.of())))
+                .andExpect(status().isOk())
+                .andReturn();
+
+        assertThat(result.getHandler()).isNotNull();
+    }
+}
@@ -0,0 +1,168 @@
+package com.example.keycloak.security;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.web.util.matcher.AntPathRequestMatcher;
+
+/**
+ * 驗簽前快速檢查：明顯無效的 Token 不應進入後續 Filter
+ */
+class BearerTokenPrecheckFilterTests {
+
+    private static final String ISSUER = "http://localhost:8080/realms/news-portal";
+
+    private final AtomicInteger jwksLoads = new AtomicInteger();
+
+    private final BearerTokenPrecheckFilter filter = new BearerTokenPrecheckFilter(
+            ISSUER,
+            Set.of("RS256"),
+            4096,
+            Duration.ofSeconds(60),
+            new JwkSetKeyIds(() -> {
+                jwksLoads.incrementAndGet();
+                return Set.of("kid-1");
+            }, Duration.ofMinutes(1), Clock.systemUTC(), Runnable::run), // 測試中同步執行背景抓取
+            new AntPathRequestMatcher("/api/files/**"),
+            Clock.systemUTC());
+
+    private static String jwt(String header, String payload) {
+        Base64.Encoder encoder = Base64.getUrlEncoder().withoutPadding();
+        return encoder.encodeToString(header.getBytes(StandardCharsets.UTF_8)) + "."
+                + encoder.encodeToString(payload.getBytes(StandardCharsets.UTF_8)) + ".signature";
+    }
+
+    private static String validPayload() {
+        return "{\"iss\":\"" + ISSUER + "\",\"exp\":" + Instant.now().plusSeconds(300).getEpochSecond() + "}";
+    }
+
+    private static String payloadIssuedAt(Instant issuedAt) {
+        return "{\"iss\":\"" + ISSUER + "\",\"iat\":" + issuedAt.getEpochSecond()
+                + ",\"exp\":" + issuedAt.plusSeconds(300).getEpochSecond() + "}";
+    }
+
+    private MockFilterChain perform(String path, String authorization) throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", path);
+        request.setServletPath(path);
+        if (authorization != null) {
+            request.addHeader(HttpHeaders.AUTHORIZATION, authorization);
+        }
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        MockFilterChain chain = new MockFilterChain();
+        filter.doFilter(request, response, chain);
+        if (chain.getRequest() == null) {
+            assertThat(response.getStatus()).isEqualTo(401);
+        }
+        return chain;
+    }
+
+    /**
+     * ✅ 格式合理的 Token 與無 Token 的請求繼續往下走
+     */
+    @Test
+    void shouldPassPlausibleTokenAndAnonymousRequest() throws Exception {
+        String token = jwt("{\"alg\":\"RS256\",\"kid\":\"kid-1\"}", validPayload());
+
+        assertThat(perform("/api/articles/basic", "Bearer " + token).getRequest()).isNotNull();
+        assertThat(perform("/api/articles/basic", null).getRequest()).isNotNull();
+    }
+
+    /**
+     * ❌ 段數錯誤、過長、alg / iss / exp 不符的 Token 直接回 401
+     */
+    @Test
+    void shouldRejectObviouslyInvalidTokens() throws Exception {
+        String expired = "{\"iss\":\"" + ISSUER + "\",\"exp\":" + Instant.now().minusSeconds(600).getEpochSecond() + "}";
+        String otherIssuer = "{\"iss\":\"http://evil.example/realms/x\",\"exp\":" + Instant.now().plusSeconds(300).getEpochSecond() + "}";
+
+        assertThat(perform("/api/articles/basic", "Bearer not-a-jwt").getRequest()).isNull();
+        assertThat(perform("/api/articles/basic", "Bearer a.b.c.d").getRequest()).isNull();
+        assertThat(perform("/api/articles/basic", "Bearer %%%.@@@.sig").getRequest()).isNull();
+        assertThat(perform("/api/articles/basic", "Bearer " + "x".repeat(5000)).getRequest()).isNull();
+        assertThat(perform("/api/articles/basic", "Bearer " + jwt("{\"alg\":\"none\",\"kid\":\"kid-1\"}", validPayload())).getRequest()).isNull();
+        assertThat(perform("/api/articles/basic", "Bearer " + jwt("{\"alg\":\"RS256\",\"kid\":\"kid-1\"}", expired)).getRequest()).isNull();
+        assertThat(perform("/api/articles/basic", "Bearer " + jwt("{\"alg\":\"RS256\",\"kid\":\"kid-1\"}", otherIssuer)).getRequest()).isNull();
+    }
+
+    /**
+     * ❌ 最近一次 JWKS 快照之前簽發、kid 卻不在快照內的 Token 直接拒絕；JWKS 在最短間隔內不再重抓
+     */
+    @Test
+    void shouldRejectUnknownKeyIdIssuedBeforeLastJwksRefresh() throws Exception {
+        String unknownKid = jwt("{\"alg\":\"RS256\",\"kid\":\"rotated-away\"}",
+                payloadIssuedAt(Instant.now().minus(Duration.ofMinutes(10))));
+        String noIssuedAt = jwt("{\"alg\":\"RS256\",\"kid\":\"rotated-away\"}", validPayload());
+
+        assertThat(perform("/api/articles/basic", "Bearer " + unknownKid).getRequest()).isNull();
+        assertThat(perform("/api/articles/basic", "Bearer " + unknownKid).getRequest()).isNull();
+        assertThat(perform("/api/articles/basic", "Bearer " + noIssuedAt).getRequest()).isNull();
+        assertThat(jwksLoads).hasValue(1);
+    }
+
+    /**
+     * ✅ 金鑰剛輪替：最近一次快照之後簽發的 Token 即使 kid 未知也交給完整驗證，不在重抓間隔內誤擋
+     */
+    @Test
+    void shouldPassUnknownKeyIdIssuedAfterLastJwksRefresh() throws Exception {
+        perform("/api/articles/basic", "Bearer " + jwt("{\"alg\":\"RS256\",\"kid\":\"kid-1\"}", validPayload()));
+        String rotated = jwt("{\"alg\":\"RS256\",\"kid\":\"kid-2\"}", payloadIssuedAt(Instant.now()));
+        String futureIssued = jwt("{\"alg\":\"RS256\",\"kid\":\"kid-2\"}", payloadIssuedAt(Instant.now().plus(Duration.ofHours(1))));
+
+        assertThat(perform("/api/articles/basic", "Bearer " + rotated).getRequest()).isNotNull();
+        assertThat(perform("/api/articles/basic", "Bearer " + futureIssued).getRequest()).isNull();
+    }
+
+    /**
+     * ✅ JWKS 抓取在背景執行，請求執行緒不會等待
+     */
+    @Test
+    void shouldNotBlockRequestThreadWhileJwksIsLoading() throws Exception {
+        CountDownLatch loading = new CountDownLatch(1);
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        JwkSetKeyIds slowKeyIds = new JwkSetKeyIds(() -> {
+            try {
+                loading.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+            }
+            return Set.of("kid-1");
+        }, Duration.ofMinutes(1), Clock.systemUTC(), executor);
+
+        try {
+            long start = System.nanoTime();
+            assertThat(slowKeyIds.isKnown("kid-1")).isTrue(); // 尚未載入：fail-open
+            assertThat(slowKeyIds.isKnown("kid-1")).isTrue();
+            assertThat(Duration.ofNanos(System.nanoTime() - start)).isLessThan(Duration.ofSeconds(1));
+        } finally {
+            loading.countDown();
+            executor.shutdown();
+        }
+        assertThat(executor.awaitTermination(5, TimeUnit.SECONDS)).isTrue();
+        assertThat(slowKeyIds.isKnown("kid-1")).isTrue();
+        assertThat(slowKeyIds.isKnown("other")).isFalse();
+    }
+
+    /**
+     * ✅ Introspection 路徑允許 opaque token
+     */
+    @Test
+    void shouldAllowOpaqueTokenOnIntrospectionPaths() throws Exception {
+        assertThat(perform("/api/files/upload", "Bearer opaque-token-value").getRequest()).isNotNull();
+    }
+}
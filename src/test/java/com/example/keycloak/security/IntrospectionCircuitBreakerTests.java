@@ -0,0 +1,96 @@
+package com.example.keycloak.security;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * 斷路器狀態轉換：關閉 → 打開 → 半開 → 關閉 / 重新打開
+ */
+class IntrospectionCircuitBreakerTests {
+
+    private static final Duration SLOW = Duration.ofMillis(300);
+    private static final Duration OPEN_DURATION = Duration.ofSeconds(30);
+
+    private final MutableClock clock = new MutableClock(Instant.parse("2026-01-01T00:00:00Z"));
+    private final IntrospectionCircuitBreaker circuitBreaker =
+            new IntrospectionCircuitBreaker(2, SLOW, OPEN_DURATION, clock);
+
+    @Test
+    void opensAfterConsecutiveFailures() {
+        circuitBreaker.record(false, Duration.ZERO);
+        assertThat(circuitBreaker.allowRequest()).isTrue();
+
+        circuitBreaker.record(true, Duration.ofSeconds(1)); // 過慢也算失敗
+        assertThat(circuitBreaker.isOpen()).isTrue();
+        assertThat(circuitBreaker.allowRequest()).isFalse();
+    }
+
+    @Test
+    void halfOpenAllowsSingleTrialAndClosesOnSuccess() {
+        open();
+        clock.advance(OPEN_DURATION);
+
+        assertThat(circuitBreaker.allowRequest()).isTrue();
+        assertThat(circuitBreaker.allowRequest()).isFalse(); // 試探進行中只放行一個
+
+        circuitBreaker.record(true, Duration.ofMillis(10));
+        assertThat(circuitBreaker.isOpen()).isFalse();
+        assertThat(circuitBreaker.allowRequest()).isTrue();
+    }
+
+    @Test
+    void failedTrialReopensAndAllowsAnotherTrialLater() {
+        open();
+        clock.advance(OPEN_DURATION);
+        assertThat(circuitBreaker.allowRequest()).isTrue();
+
+        circuitBreaker.record(false, Duration.ZERO);
+        assertThat(circuitBreaker.allowRequest()).isFalse();
+
+        clock.advance(OPEN_DURATION);
+        assertThat(circuitBreaker.allowRequest()).isTrue();
+        circuitBreaker.record(true, Duration.ofMillis(10));
+        assertThat(circuitBreaker.isOpen()).isFalse();
+    }
+
+    private void open() {
+        circuitBreaker.record(false, Duration.ZERO);
+        circuitBreaker.record(false, Duration.ZERO);
+        assertThat(circuitBreaker.isOpen()).isTrue();
+    }
+
+    private static final class MutableClock extends Clock {
+
+        private volatile Instant now;
+
+        MutableClock(Instant now) {
+            this.now = now;
+        }
+
+        void advance(Duration duration) {
+            now = now.plus(duration);
+        }
+
+        @Override
+        public Instant instant() {
+            return now;
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+    }
+}
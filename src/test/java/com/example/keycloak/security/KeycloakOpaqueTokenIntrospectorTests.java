@@ -0,0 +1,237 @@
+package com.example.keycloak.security;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.web.client.RestTemplateBuilder;
+import org.springframework.security.core.authority.AuthorityUtils;
+import org.springframework.security.oauth2.core.OAuth2AuthenticatedPrincipal;
+import org.springframework.security.oauth2.jwt.BadJwtException;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.security.oauth2.jwt.JwtDecoder;
+import org.springframework.security.oauth2.server.resource.introspection.BadOpaqueTokenException;
+import org.springframework.security.oauth2.server.resource.introspection.SpringOpaqueTokenIntrospector;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * 以本地 mock Introspection 伺服器測試快取、合併請求與斷路器退回
+ */
+class KeycloakOpaqueTokenIntrospectorTests {
+
+    private static final String ACTIVE_RESPONSE = """
+            {"active":true,"sub":"user-1","scope":"openid",
+             "realm_access":{"roles":["premium_access"]}}""";
+    private static final String INACTIVE_RESPONSE = "{\"active\":false}";
+
+    private HttpServer server;
+    private final AtomicInteger introspectionCalls = new AtomicInteger();
+    private final AtomicLong responseDelayMillis = new AtomicLong();
+    private volatile String responseBody = ACTIVE_RESPONSE;
+
+    @BeforeEach
+    void startMockIntrospectionServer() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.createContext("/introspect", this::handleIntrospection);
+        server.setExecutor(Executors.newCachedThreadPool());
+        server.start();
+    }
+
+    @AfterEach
+    void stopMockIntrospectionServer() {
+        server.stop(0);
+    }
+
+    private void handleIntrospection(HttpExchange exchange) throws IOException {
+        introspectionCalls.incrementAndGet();
+        exchange.getRequestBody().readAllBytes();
+        try {
+            Thread.sleep(responseDelayMillis.get());
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+        byte[] body = responseBody.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/json");
+        exchange.sendResponseHeaders(200, body.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(body);
+        }
+    }
+
+    private KeycloakOpaqueTokenIntrospector introspector(JwtDecoder jwtDecoder, int failureThreshold) {
+        return introspector(jwtDecoder, failureThreshold, 100);
+    }
+
+    private KeycloakOpaqueTokenIntrospector introspector(JwtDecoder jwtDecoder, int failureThreshold, int cacheMaxEntries) {
+        return introspector(jwtDecoder,
+                new IntrospectionCircuitBreaker(failureThreshold, Duration.ofMillis(200), Duration.ofMinutes(1), Clock.systemUTC()),
+                cacheMaxEntries,
+                Duration.ofMillis(300));
+    }
+
+    private KeycloakOpaqueTokenIntrospector introspector(JwtDecoder jwtDecoder,
+                                                         IntrospectionCircuitBreaker circuitBreaker,
+                                                         int cacheMaxEntries,
+                                                         Duration timeout) {
+        String uri = "http://localhost:" + server.getAddress().getPort() + "/introspect";
+        SpringOpaqueTokenIntrospector remote = new SpringOpaqueTokenIntrospector(uri, new RestTemplateBuilder()
+                .basicAuthentication("news-api", "secret")
+                .setConnectTimeout(timeout)
+                .setReadTimeout(timeout)
+                .build());
+        return new KeycloakOpaqueTokenIntrospector(
+                remote,
+                jwtDecoder,
+                new JwtAuthConverter(),
+                circuitBreaker,
+                Duration.ofSeconds(30),
+                cacheMaxEntries,
+                timeout,
+                Clock.systemUTC());
+    }
+
+    private static JwtDecoder rejectingDecoder() {
+        return token -> {
+            throw new BadJwtException("not a JWT");
+        };
+    }
+
+    /**
+     * ✅ Introspection 結果應套用 Keycloak 角色對應並被快取
+     */
+    @Test
+    void shouldCacheActiveResultAndMapKeycloakRoles() {
+        KeycloakOpaqueTokenIntrospector introspector = introspector(rejectingDecoder(), 5);
+
+        OAuth2AuthenticatedPrincipal first = introspector.introspect("opaque-token");
+        OAuth2AuthenticatedPrincipal second = introspector.introspect("opaque-token");
+
+        assertThat(first.getName()).isEqualTo("user-1");
+        assertThat(AuthorityUtils.authorityListToSet(first.getAuthorities())).contains("ROLE_PREMIUM_ACCESS");
+        assertThat(second).isSameAs(first);
+        assertThat(introspectionCalls).hasValue(1);
+    }
+
+    /**
+     * ❌ 已撤銷的 Token（active=false）應被拒絕，且負面結果同樣快取
+     */
+    @Test
+    void shouldRejectAndCacheRevokedToken() {
+        responseBody = INACTIVE_RESPONSE;
+        KeycloakOpaqueTokenIntrospector introspector = introspector(rejectingDecoder(), 5);
+
+        assertThatThrownBy(() -> introspector.introspect("revoked-token")).isInstanceOf(BadOpaqueTokenException.class);
+        assertThatThrownBy(() -> introspector.introspect("revoked-token")).isInstanceOf(BadOpaqueTokenException.class);
+        assertThat(introspectionCalls).hasValue(1);
+    }
+
+    /**
+     * ✅ 快取已滿（且項目皆未過期）時淘汰舊項目，新的 Token 仍會被快取
+     */
+    @Test
+    void shouldKeepCachingNewTokensWhenCacheIsFull() {
+        KeycloakOpaqueTokenIntrospector introspector = introspector(rejectingDecoder(), 5, 2);
+
+        introspector.introspect("token-a");
+        introspector.introspect("token-b");
+        introspector.introspect("token-c");
+        introspector.introspect("token-c");
+
+        assertThat(introspectionCalls).hasValue(3);
+    }
+
+    /**
+     * ✅ 同一 Token 的並行請求只會產生一次對外呼叫
+     */
+    @Test
+    void shouldCoalesceConcurrentIntrospectionsOfSameToken() throws Exception {
+        responseDelayMillis.set(100);
+        KeycloakOpaqueTokenIntrospector introspector = introspector(rejectingDecoder(), 5);
+
+        int concurrency = 8;
+        ExecutorService executor = Executors.newFixedThreadPool(concurrency);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<OAuth2AuthenticatedPrincipal>> results = new ArrayList<>();
+        for (int i = 0; i < concurrency; i++) {
+            results.add(executor.submit(() -> {
+                start.await();
+                return introspector.introspect("shared-token");
+            }));
+        }
+        start.countDown();
+
+        for (Future<OAuth2AuthenticatedPrincipal> result : results) {
+            assertThat(result.get(5, TimeUnit.SECONDS).getName()).isEqualTo("user-1");
+        }
+        executor.shutdownNow();
+        assertThat(introspectionCalls).hasValue(1);
+    }
+
+    /**
+     * ✅ 半開試探遇到非預期錯誤（`roles` 格式異常）仍會記錄結果，端點恢復後斷路器可以關閉
+     */
+    @Test
+    void shouldRecoverFromHalfOpenTrialThatThrowsUnexpectedException() {
+        responseBody = """
+                {"active":true,"sub":"user-1","realm_access":{"roles":[1,2]}}""";
+        // 逾時與過慢門檻放寬，避免第一次連線較慢造成誤判
+        IntrospectionCircuitBreaker circuitBreaker =
+                new IntrospectionCircuitBreaker(1, Duration.ofSeconds(5), Duration.ZERO, Clock.systemUTC());
+        circuitBreaker.record(false, Duration.ZERO); // 先打開斷路器，下一次呼叫即為半開試探
+        KeycloakOpaqueTokenIntrospector introspector =
+                introspector(rejectingDecoder(), circuitBreaker, 100, Duration.ofSeconds(5));
+
+        assertThatThrownBy(() -> introspector.introspect("token-1")).isInstanceOf(ClassCastException.class);
+        assertThatThrownBy(() -> introspector.introspect("token-2")).isInstanceOf(ClassCastException.class);
+        assertThat(introspectionCalls).hasValue(2); // 第二次仍可半開試探，而不是永遠退回本地驗證
+
+        responseBody = ACTIVE_RESPONSE;
+        assertThat(introspector.introspect("token-3").getName()).isEqualTo("user-1");
+        assertThat(circuitBreaker.isOpen()).isFalse();
+    }
+
+    /**
+     * ✅ 端點過慢時退回本地 JWT 驗證，達門檻後斷路器打開不再呼叫端點
+     */
+    @Test
+    void shouldFallBackToLocalJwtValidationWhenEndpointIsSlow() {
+        responseDelayMillis.set(1_000);
+        JwtDecoder localDecoder = token -> Jwt.withTokenValue(token)
+                .header("alg", "RS256")
+                .subject("local-user")
+                .claim("realm_access", Map.of("roles", List.of("basic_access")))
+                .expiresAt(Instant.now().plusSeconds(60))
+                .build();
+        KeycloakOpaqueTokenIntrospector introspector = introspector(localDecoder, 2);
+
+        OAuth2AuthenticatedPrincipal first = introspector.introspect("jwt-1");
+        introspector.introspect("jwt-2");
+        OAuth2AuthenticatedPrincipal third = introspector.introspect("jwt-3");
+
+        assertThat(first.getName()).isEqualTo("local-user");
+        assertThat(AuthorityUtils.authorityListToSet(third.getAuthorities())).contains("ROLE_BASIC_ACCESS");
+        assertThat(introspectionCalls).hasValue(2);
+    }
+}
@@ -0,0 +1,147 @@
+package com.example.keycloak.security;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.IntStream;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import com.nimbusds.jose.KeySourceException;
+import com.nimbusds.jose.jwk.JWK;
+import com.nimbusds.jose.jwk.JWKMatcher;
+import com.nimbusds.jose.jwk.JWKSelector;
+import com.nimbusds.jose.jwk.JWKSet;
+import com.nimbusds.jose.jwk.gen.RSAKeyGenerator;
+
+/**
+ * 驗簽用 JWKS 來源：金鑰輪替時不沿用舊的抓取結果，垃圾 kid 不放大抓取次數
+ */
+class RefreshingJwkSourceTests {
+
+    private static final JWK OLD_KEY = rsaKey("kid-old");
+    private static final JWK NEW_KEY = rsaKey("kid-new");
+
+    private final ExecutorService executor = Executors.newCachedThreadPool();
+
+    @AfterEach
+    void shutdown() {
+        executor.shutdownNow();
+    }
+
+    private static JWK rsaKey(String keyId) {
+        try {
+            return new RSAKeyGenerator(2048).keyID(keyId).generate().toPublicJWK();
+        } catch (Exception ex) {
+            throw new IllegalStateException(ex);
+        }
+    }
+
+    private static JWKSelector byKeyId(String keyId) {
+        return new JWKSelector(new JWKMatcher.Builder().keyID(keyId).build());
+    }
+
+    /**
+     * ✅ 輪替前就開始的抓取（由垃圾 kid 觸發）不能拿來判斷新 kid，必須再抓一次
+     */
+    @Test
+    void newKeyIsFoundEvenWhenAStaleFetchIsInFlight() throws Exception {
+        CountDownLatch staleFetchStarted = new CountDownLatch(1);
+        CountDownLatch releaseStaleFetch = new CountDownLatch(1);
+        AtomicReference<JWKSet> published = new AtomicReference<>(new JWKSet(OLD_KEY));
+        AtomicInteger loads = new AtomicInteger();
+
+        RefreshingJwkSource source = new RefreshingJwkSource(() -> {
+            JWKSet snapshot = published.get();
+            if (loads.incrementAndGet() == 2) {
+                staleFetchStarted.countDown();
+                await(releaseStaleFetch);
+            }
+            return snapshot;
+        }, Duration.ZERO);
+        assertThat(source.get(byKeyId("kid-old"), null)).hasSize(1);
+
+        // 垃圾 kid 觸發的抓取在輪替前開始，並卡在網路上
+        Future<List<JWK>> junk = executor.submit(() -> source.get(byKeyId("junk"), null));
+        assertThat(staleFetchStarted.await(5, TimeUnit.SECONDS)).isTrue();
+
+        // 輪替：新金鑰發布，以新金鑰簽發的 Token 進來
+        published.set(new JWKSet(List.of(OLD_KEY, NEW_KEY)));
+        Future<List<JWK>> valid = executor.submit(() -> source.get(byKeyId("kid-new"), null));
+        Thread.sleep(100); // 讓新 kid 的查找排在卡住的抓取之後
+        releaseStaleFetch.countDown();
+
+        assertThat(junk.get(5, TimeUnit.SECONDS)).isEmpty();
+        assertThat(valid.get(5, TimeUnit.SECONDS)).extracting(JWK::getKeyID).containsExactly("kid-new");
+    }
+
+    /**
+     * ✅ 大量垃圾 kid 同時到達：同一時間只有一個抓取，且受最短間隔限制
+     */
+    @Test
+    void junkKeyIdsAreRateLimited() throws Exception {
+        AtomicInteger loads = new AtomicInteger();
+        AtomicInteger concurrentLoads = new AtomicInteger();
+        AtomicInteger maxConcurrentLoads = new AtomicInteger();
+        RefreshingJwkSource source = new RefreshingJwkSource(() -> {
+            maxConcurrentLoads.accumulateAndGet(concurrentLoads.incrementAndGet(), Math::max);
+            loads.incrementAndGet();
+            concurrentLoads.decrementAndGet();
+            return new JWKSet(OLD_KEY);
+        }, Duration.ofMillis(200));
+
+        long deadline = System.nanoTime() + Duration.ofMillis(600).toNanos();
+        List<Future<Object>> workers = IntStream.range(0, 8)
+                .mapToObj(worker -> executor.submit(() -> {
+                    int i = 0;
+                    while (System.nanoTime() < deadline) {
+                        assertThat(source.get(byKeyId("junk-" + worker + "-" + i++), null)).isEmpty();
+                    }
+                    return null;
+                }))
+                .toList();
+        for (Future<Object> worker : workers) {
+            worker.get(5, TimeUnit.SECONDS);
+        }
+
+        // 初次載入 + 600ms 內每 200ms 最多一次（最後一次可能在截止前剛開始）
+        assertThat(loads.get()).isBetween(2, 6);
+        assertThat(maxConcurrentLoads.get()).isEqualTo(1);
+    }
+
+    /**
+     * ✅ Keycloak 暫時無法連線：沿用舊金鑰，未知 kid 視為不存在而非錯誤
+     */
+    @Test
+    void keepsPreviousKeysWhenRefreshFails() throws Exception {
+        AtomicInteger loads = new AtomicInteger();
+        RefreshingJwkSource source = new RefreshingJwkSource(() -> {
+            if (loads.incrementAndGet() > 1) {
+                throw new KeySourceException("connection refused");
+            }
+            return new JWKSet(OLD_KEY);
+        }, Duration.ZERO);
+
+        assertThat(source.get(byKeyId("kid-old"), null)).hasSize(1);
+        assertThat(source.get(byKeyId("kid-new"), null)).isEmpty();
+        assertThat(source.get(byKeyId("kid-old"), null)).hasSize(1);
+        assertThat(loads).hasValue(2);
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,80 @@
+package com.example.keycloak.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockMultipartFile;
+
+/**
+ * S3 上傳內容必須逐位元組一致，SDK 重試時從頭開始並關閉前一個串流
+ */
+class MultipartContentStreamProviderTests {
+
+    private final byte[] content = randomBytes(10 * 1024 + 123);
+
+    @Test
+    void roundTripsContentByteForByte() throws IOException {
+        MockMultipartFile file = new MockMultipartFile("file", "video.mp4", "video/mp4", content);
+
+        try (MultipartContentStreamProvider provider = new MultipartContentStreamProvider(file)) {
+            assertThat(provider.newStream().readAllBytes()).isEqualTo(content);
+        }
+    }
+
+    @Test
+    void newStreamRestartsFromFirstByteAndClosesPrevious() throws IOException {
+        List<TrackingInputStream> opened = new ArrayList<>();
+        MockMultipartFile file = new MockMultipartFile("file", "video.mp4", "video/mp4", content) {
+            @Override
+            public InputStream getInputStream() {
+                TrackingInputStream stream = new TrackingInputStream(content);
+                opened.add(stream);
+                return stream;
+            }
+        };
+
+        try (MultipartContentStreamProvider provider = new MultipartContentStreamProvider(file)) {
+            // 第一次傳送讀到一半失敗
+            InputStream first = provider.newStream();
+            assertThat(first.readNBytes(3000)).hasSize(3000);
+
+            // 重試：重新取得串流，必須從第一個位元組開始且內容完整
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            provider.newStream().transferTo(out);
+            assertThat(out.toByteArray()).isEqualTo(content);
+            assertThat(opened.get(0).closed).isTrue();
+        }
+        assertThat(opened).hasSize(2).allMatch(stream -> stream.closed);
+    }
+
+    private static byte[] randomBytes(int size) {
+        byte[] bytes = new byte[size];
+        ThreadLocalRandom.current().nextBytes(bytes);
+        return bytes;
+    }
+
+    /**
+     * 記錄是否已關閉，用來確認前一個串流沒有洩漏
+     */
+    private static final class TrackingInputStream extends ByteArrayInputStream {
+
+        private boolean closed;
+
+        TrackingInputStream(byte[] content) {
+            super(content);
+        }
+
+        @Override
+        public void close() {
+            closed = true;
+        }
+    }
+}
@@ -0,0 +1,56 @@
+package com.example.keycloak.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.time.Duration;
+
+import org.junit.jupiter.api.Test;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * 同時上傳數上限：額度、逾時拒絕與歸還
+ */
+class UploadConcurrencyLimiterTests {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private final UploadConcurrencyLimiter limiter = new UploadConcurrencyLimiter(2, Duration.ofMillis(50), meterRegistry);
+
+    @Test
+    void reportsUploadsInProgress() {
+        assertThat(meterRegistry.get("upload.concurrency.limit").gauge().value()).isEqualTo(2);
+
+        try (UploadConcurrencyLimiter.Permit permit = limiter.acquire()) {
+            assertThat(meterRegistry.get("upload.concurrency.in.use").gauge().value()).isEqualTo(1);
+        }
+
+        assertThat(meterRegistry.get("upload.concurrency.in.use").gauge().value()).isZero();
+    }
+
+    @Test
+    void rejectsWhenLimitReached() {
+        try (UploadConcurrencyLimiter.Permit first = limiter.acquire();
+             UploadConcurrencyLimiter.Permit second = limiter.acquire()) {
+            assertThatThrownBy(limiter::acquire).isInstanceOf(UploadCapacityExceededException.class);
+        }
+
+        assertThat(meterRegistry.get("upload.concurrency.rejected").counter().count()).isEqualTo(1);
+        // 歸還後可再次取得
+        limiter.acquire().close();
+    }
+
+    @Test
+    void closingPermitTwiceReleasesOnce() {
+        UploadConcurrencyLimiter.Permit permit = limiter.acquire();
+        permit.close();
+        permit.close();
+
+        assertThat(limiter.inUse()).isZero();
+        try (UploadConcurrencyLimiter.Permit first = limiter.acquire();
+             UploadConcurrencyLimiter.Permit second = limiter.acquire()) {
+            assertThatThrownBy(limiter::acquire).isInstanceOf(UploadCapacityExceededException.class);
+        }
+    }
+}